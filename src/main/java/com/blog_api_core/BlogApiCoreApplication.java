@@ -2,8 +2,10 @@ package com.blog_api_core;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BlogApiCoreApplication {
 
 	public static void main(String[] args) {
@@ -4,8 +4,11 @@ import com.blog_api_core.jwt.AuthEntryPoint;
 import com.blog_api_core.jwt.AuthTokenFilter;
 import com.blog_api_core.jwt.CustomAccessDeniedHandler;
 import com.blog_api_core.services.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -31,6 +34,8 @@ public class SecurityConfig {
     private final AuthTokenFilter authTokenFilter;
     private final AuthEntryPoint authEntryPoint;
     private final CustomAccessDeniedHandler accessDeniedHandler;
+    @Value("${management.server.port:-1}")
+    private int managementPort;
 
     public SecurityConfig(CustomUserDetailsService userDetailsService, AuthTokenFilter authTokenFilter, AuthEntryPoint authEntryPoint, CustomAccessDeniedHandler accessDeniedHandler) {
         this.userDetailsService = userDetailsService;
@@ -52,7 +57,16 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(request ->
                         request
+                                // async dispatches (streamed responses) were already authorized on the original request
+                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                                 .requestMatchers("/api/auth/register", "/api/auth/login", "/blog/getUser").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/media/**").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                                // scraped by Prometheus on the internal management port only; anywhere else it needs ADMIN
+                                .requestMatchers(scrape -> scrape.getLocalPort() == managementPort
+                                        && "/actuator/prometheus".equals(scrape.getRequestURI())).permitAll()
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                                .requestMatchers(HttpMethod.HEAD, "/media/**").permitAll()
                                 .anyRequest().authenticated()
                 );
 
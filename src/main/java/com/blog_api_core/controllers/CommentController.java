@@ -1,12 +1,12 @@
 package com.blog_api_core.controllers;
 
+import com.blog_api_core.jwt.CurrentUser;
+import com.blog_api_core.jwt.UserPrincipal;
 import com.blog_api_core.models.Comment;
-import com.blog_api_core.models.User;
 import com.blog_api_core.payload.CommentPayload;
 import com.blog_api_core.repository.UserRepository;
 import com.blog_api_core.services.CommentService;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.*;
@@ -25,13 +25,9 @@ public class CommentController {
     }
 
     @PostMapping("/add-comment/{post_id}")
-    public ResponseEntity<Map<String, Object>> addComment(@PathVariable Long post_id, @RequestBody Comment comment) {
-        // get the currently logged-in user
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        // find the user by username
-        Optional<User> user = userRepository.findByUsername(username);
-        // set the user to the comment
-        comment.setUser(user.get());
+    public ResponseEntity<Map<String, Object>> addComment(@PathVariable Long post_id, @RequestBody Comment comment, @CurrentUser UserPrincipal principal) {
+        // set the logged-in user to the comment without loading the user row
+        comment.setUser(userRepository.getReferenceById(principal.getId()));
         Map<String, Object> response = new LinkedHashMap<>();
         Comment savedComment = commentService.saveComment(post_id, comment);
         response.put("status", true);
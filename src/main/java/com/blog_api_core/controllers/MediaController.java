@@ -0,0 +1,179 @@
+package com.blog_api_core.controllers;
+
+import com.blog_api_core.utils.LocalMediaStorage;
+import com.blog_api_core.utils.MediaStorage;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Serves media written by LocalMediaStorage. Bodies go out through Tomcat's sendfile when the connector
+// supports it (the kernel copies file pages straight to the socket); otherwise they are copied through the
+// servlet output stream, an ordinary buffered copy. Supports single byte ranges and conditional requests
+// on a strong ETag taken from the content hash in the key.
+@RestController
+@ConditionalOnProperty(name = "spring.app.storage", havingValue = "local")
+public class MediaController {
+    private static final String PREFIX = "/media/";
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+    // <sha-256> or <sha-256>/<variant>.jpg at the end of a key
+    private static final Pattern CONTENT_HASH = Pattern.compile("(?:^|/)([0-9a-f]{64})(?:/([a-z]+)\\.jpg)?$");
+
+    private final LocalMediaStorage storage;
+
+    public MediaController(LocalMediaStorage storage) {
+        this.storage = storage;
+    }
+
+    @GetMapping(PREFIX + "**")
+    public void getMedia(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String key = PATH_HELPER.getPathWithinApplication(request).substring(PREFIX.length());
+        Path file = storage.find(key);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = etag(key, size, lastModified);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, MediaStorage.IMMUTABLE_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(contentType(file));
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            ServletOutputStream out = response.getOutputStream();
+            in.skipNBytes(start);
+            byte[] buffer = new byte[8192];
+            for (long remaining = length; remaining > 0; ) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+            out.flush();
+        }
+    }
+
+    // the key names the bytes it holds, so its hash (plus the variant) is a strong validator;
+    // keys without one fall back to mtime and size, which change whenever the file is replaced
+    static String etag(String key, long size, long lastModified) {
+        Matcher hash = CONTENT_HASH.matcher(key);
+        if (hash.find()) {
+            return "\"" + hash.group(1) + (hash.group(2) != null ? "-" + hash.group(2) : "") + "\"";
+        }
+        return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+    }
+
+    // {start, end} for a single satisfiable range, {} to ignore the header (multiple ranges or
+    // syntax we don't handle, answered with the whole file), null when unsatisfiable
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            }
+            if (start >= size || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String contentType(Path file) throws IOException {
+        String type = Files.probeContentType(file);
+        if (type == null) {
+            // content-addressed originals have no extension, so sniff the magic bytes
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                type = URLConnection.guessContentTypeFromStream(in);
+            }
+        }
+        return type != null ? type : "application/octet-stream";
+    }
+}
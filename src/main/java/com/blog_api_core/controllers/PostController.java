@@ -1,26 +1,32 @@
 package com.blog_api_core.controllers;
 
 import com.blog_api_core.exceptions.NotFoundException;
+import com.blog_api_core.jwt.CurrentUser;
+import com.blog_api_core.jwt.UserPrincipal;
 import com.blog_api_core.models.*;
-import com.blog_api_core.payload.BookMarkPayload;
-import com.blog_api_core.payload.LikesPayload;
+import com.blog_api_core.payload.BookMarkEntry;
+import com.blog_api_core.payload.CursorPage;
+import com.blog_api_core.payload.LikeEntry;
+import com.blog_api_core.payload.PendingUpload;
 import com.blog_api_core.payload.PostSummary;
 import com.blog_api_core.payload.SinglePost;
-import com.blog_api_core.repository.BookMarkRepository;
-import com.blog_api_core.repository.LikeRepository;
+import com.blog_api_core.payload.ViewerStateRequest;
 import com.blog_api_core.repository.UserRepository;
 import com.blog_api_core.services.BookMarkService;
 import com.blog_api_core.services.LikeService;
 import com.blog_api_core.services.PostService;
 import com.blog_api_core.services.TopicService;
+import com.blog_api_core.services.ViewerStateService;
 import com.blog_api_core.utils.S3FileStorageUtils;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
 
@@ -32,64 +38,49 @@ public class PostController {
     private final TopicService topicService;
     private final S3FileStorageUtils s3FileStorageUtils;
     private final UserRepository userRepository;
-    private final LikeRepository likeRepository;
-    private final BookMarkRepository bookMarkRepository;
     private final LikeService likeService;
     private final BookMarkService bookMarkService;
+    private final ViewerStateService viewerStateService;
 
-    public PostController(PostService postService, TopicService topicService, S3FileStorageUtils s3FileStorageUtils, UserRepository userRepository, LikeRepository likeRepository, BookMarkRepository bookMarkRepository, LikeService likeService, BookMarkService bookMarkService) {
+    public PostController(PostService postService, TopicService topicService, S3FileStorageUtils s3FileStorageUtils, UserRepository userRepository, LikeService likeService, BookMarkService bookMarkService, ViewerStateService viewerStateService) {
         this.postService = postService;
         this.topicService = topicService;
         this.s3FileStorageUtils = s3FileStorageUtils;
         this.userRepository = userRepository;
-        this.likeRepository = likeRepository;
-        this.bookMarkRepository = bookMarkRepository;
         this.likeService = likeService;
         this.bookMarkService = bookMarkService;
+        this.viewerStateService = viewerStateService;
     }
 
 
     @PostMapping(value="/add-post", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Map<String, Object>> addPost(
             @RequestPart("post") @Valid Post post,
-            @RequestPart("image") MultipartFile file) {
-//        get the currently logged-in user
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Optional<User> user = userRepository.findByUsername(username);
+            @RequestPart("image") MultipartFile file,
+            @CurrentUser UserPrincipal principal) {
         List<Topic> topics = post.getTopics();
-//        check if topics already exist or create new ones
-        List<Topic> existingTopics = new ArrayList<>();
-        // Link each topic to the post
+//        map topic names onto existing topics, creating the missing ones in one batch
         if(topics != null && !topics.isEmpty()) {
-            for (Topic topic : topics) {
-//              Checking if topic exists by name
-                Optional<Topic> existingTopic = topicService.getTopicByName(topic.getName());
-
-                if(existingTopic.isPresent()) {
-                    existingTopics.add(existingTopic.get());
-                }else{
-                    Topic newTopic = new Topic();
-                    newTopic.setName(topic.getName());
-                    existingTopics.add(topicService.saveTopic(newTopic));
-                }
-//                topic.setPost(post); // Set the post_id in each topic (ManyToOne relation)
-            }
-            post.setTopics(existingTopics);
+            post.setTopics(topicService.resolveTopics(topics));
         }
 
-//        upload the post image too
+//        upload the post image in the background; the post keeps a pending url until it is stored
+        PendingUpload upload = null;
         if(file != null && !file.isEmpty()) {
-            String filePath = s3FileStorageUtils.uploadPostImage(file);
-            post.setImgUrl(filePath);
+            upload = s3FileStorageUtils.uploadPostImage(file);
+            post.setImgUrl(upload.getPendingUrl());
         }
 
         Map<String, Object> response = new LinkedHashMap<>();
         try{
-            Post savedPost = postService.savePost(user.get(), post);
+//            the author is only needed as a foreign key, so a reference avoids loading the user row
+            Post savedPost = upload == null
+                    ? postService.savePost(userRepository.getReferenceById(principal.getId()), post)
+                    : postService.savePost(userRepository.getReferenceById(principal.getId()), post, upload, null);
 
             response.put("status", "true");
             response.put("result", savedPost);
-            response.put("username", username);
+            response.put("username", principal.getUsername());
         } catch (NotFoundException e) {
             throw new NotFoundException("Post not saved");
         }
@@ -107,26 +98,50 @@ public class PostController {
         return ResponseEntity.ok(response);
     }
 
+    // ?stream=true variants write rows straight from a database cursor instead of building a List
+    @GetMapping(value = "/posts", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllPosts(){
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(postService.streamAllPosts());
+    }
+
+    @CrossOrigin(origins = "http://localhost:5173")
+    @GetMapping(value = "/posts-summary", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAllPostsSummary(@CurrentUser UserPrincipal principal){
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(postService.streamAllPostSummaries(principal.getId()));
+    }
+
     @CrossOrigin(origins = "http://localhost:5173")
     @GetMapping("/posts-summary")
-    public ResponseEntity<Map<String, Object>> getAllPostsSummary(){
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new NotFoundException("Please Log in"));
+    public ResponseEntity<Map<String, Object>> getAllPostsSummary(@CurrentUser UserPrincipal principal){
         Map<String, Object> response = new LinkedHashMap<>();
-        List<PostSummary> posts = postService.getAllPostSummaries(user.getId());
+        List<PostSummary> posts = postService.getAllPostSummaries(principal.getId());
 
         response.put("status", true);
         response.put("result", posts);
-        response.put("user", SecurityContextHolder.getContext().getAuthentication().getName());
+        response.put("user", principal.getUsername());
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/summaries")
     public ResponseEntity<Map<String, Object>> getPaginatedPostSummaries(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "5") int size
+            @RequestParam(defaultValue = "5") int size,
+            @RequestParam(required = false) String cursor
     ) {
+//        cursor mode: pass cursor (empty for the first page) to page by (createdAt, id) without a count query
+        if(cursor != null) {
+            CursorPage<PostSummary> summaries = postService.getPostSummariesAfterCursor(cursor, size);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", true);
+            response.put("result", summaries.getContent());
+            response.put("nextCursor", summaries.getNextCursor());
+            response.put("hasNext", summaries.hasNext());
+            return ResponseEntity.ok(response);
+        }
         Page<PostSummary> summaries = postService.getPaginatedPostSummaries(page, size);
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("status", true);
@@ -139,6 +154,16 @@ public class PostController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/trending")
+    public ResponseEntity<Map<String, Object>> getTrendingPosts(
+            @RequestParam(defaultValue = "20") int limit,
+            @CurrentUser UserPrincipal principal){
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", true);
+        response.put("result", postService.getTrendingPosts(principal.getId(), limit));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/post/{post_id}")
     public ResponseEntity<Map<String, Object>> getPostById(@PathVariable Long post_id){
         Map<String, Object> response = new LinkedHashMap<>();
@@ -153,17 +178,23 @@ public class PostController {
         return ResponseEntity.ok(response);
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/post-cache/stats")
+    public ResponseEntity<Map<String, Object>> getPostCacheStats(){
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", true);
+        response.put("result", postService.getPostCacheStats());
+        return ResponseEntity.ok(response);
+    }
+
     @DeleteMapping("/delete/{post_id}")
-    public ResponseEntity<Map<String, Object>> deletePost(@PathVariable Long post_id){
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new NotFoundException("Please Log in"));
+    public ResponseEntity<Map<String, Object>> deletePost(@PathVariable Long post_id, @CurrentUser UserPrincipal principal){
 
         Map<String, Object> response = new LinkedHashMap<>();
         Post post = postService.getPostById(post_id);
         if(post == null) {
             throw new NotFoundException("Post not found");
-        } else if(!post.getUser().getId().equals(user.getId())) {
+        } else if(!post.getUser().getId().equals(principal.getId())) {
             throw new NotFoundException("You are not authorized to delete this post");
         } else{
             postService.deletePost(post);
@@ -176,54 +207,24 @@ public class PostController {
 
 
     @PostMapping("/like/{post_id}")
-    public ResponseEntity<Map<String, Object>> toggleLike(@PathVariable Long post_id){
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new NotFoundException("Please Log in"));
-        Post post = postService.getPostById(post_id);
-
+    public ResponseEntity<Map<String, Object>> toggleLike(@PathVariable Long post_id, @CurrentUser UserPrincipal principal){
         Map<String, Object> response = new LinkedHashMap<>();
-
-        Optional<Like> alreadyLiked = likeRepository.findByUserAndPost(user, post);
-        if(alreadyLiked.isPresent()) {
-            likeRepository.delete(alreadyLiked.get());
-            response.put("status",true);
-            response.put("message","unliked");
-            return ResponseEntity.ok(response);
-        }
-
-        Like like = new Like();
-        like.setUser(user);
-        like.setPost(post);
-        likeRepository.save(like);
+        boolean liked = likeService.toggleLike(principal.getId(), post_id);
         response.put("status",true);
-        response.put("message","liked");
+        response.put("message",liked ? "liked" : "unliked");
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/bookmark/{post_id}")
-    public ResponseEntity<Map<String, Object>> toggleBookMark(@PathVariable Long post_id){
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new NotFoundException("Please Log in"));
-        Post post = postService.getPostById(post_id);
-
+    public ResponseEntity<Map<String, Object>> toggleBookMark(@PathVariable Long post_id, @CurrentUser UserPrincipal principal){
         Map<String, Object> response = new LinkedHashMap<>();
-
-        Optional<BookMark> alreadyBookedMarked = bookMarkRepository.findByUserAndPost(user, post);
-        if(alreadyBookedMarked.isPresent()) {
-            bookMarkRepository.delete(alreadyBookedMarked.get());
+        if(bookMarkService.toggleBookMark(principal.getId(), post_id)) {
+            response.put("status",true);
+            response.put("message","Bookmarked");
+        } else {
             response.put("status",false);
             response.put("message","Removed from bookmarks");
-            return ResponseEntity.ok(response);
         }
-
-        BookMark bookMark = new BookMark();
-        bookMark.setUser(user);
-        bookMark.setPost(post);
-        bookMarkRepository.save(bookMark);
-        response.put("status",true);
-        response.put("message","Bookmarked");
         return ResponseEntity.ok(response);
     }
 
@@ -242,12 +243,31 @@ public class PostController {
         response.put("result", posts);
         return ResponseEntity.ok(response);
     }
+    @GetMapping("/posts/topic/{topic_id}/feed")
+    public ResponseEntity<Map<String, Object>> getTopicFeed(
+            @PathVariable Long topic_id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @CurrentUser UserPrincipal principal){
+        Map<String, Object> response = new LinkedHashMap<>();
+        Slice<PostSummary> posts = postService.getTopicFeed(topic_id, principal.getId(), page, size);
+
+        response.put("status", true);
+        response.put("result", posts.getContent());
+        response.put("currentPage", posts.getNumber());
+        response.put("hasNext", posts.hasNext());
+        return ResponseEntity.ok(response);
+    }
+    @GetMapping(value = "/posts/topic/{topic_id}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamPostsByTopic(@PathVariable Long topic_id){
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(postService.streamPostSummariesByTopicId(topic_id));
+    }
 // Get posts of currently logged in user
     @GetMapping("/posts/user")
-    public ResponseEntity<Map<String, Object>> getPostsByUser(){
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new NotFoundException("Please Log in"));
-        List<PostSummary> posts = postService.getPostSummariesByUserId(user.getId());
+    public ResponseEntity<Map<String, Object>> getPostsByUser(@CurrentUser UserPrincipal principal){
+        List<PostSummary> posts = postService.getPostSummariesByUserId(principal.getId());
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("status", true);
         response.put("result", posts);
@@ -263,29 +283,58 @@ public ResponseEntity<Map<String, Object>> getPostsByUser(@PathVariable String u
     response.put("result", posts);
     return ResponseEntity.ok(response);
 }
-@GetMapping("/post/likes/{post_id}")
-public ResponseEntity<Map<String, Object>> getPostLikes(@PathVariable Long post_id){
-    Map<String, Object> response = new LinkedHashMap<>();
-    Post post = postService.getPostById(post_id);
-    if(post == null) {
-        throw new NotFoundException("Post not found");
+//    keyset pages of a post's likes, newest first: pass the returned nextCursor to get the next page
+    @GetMapping("/post/likes/{post_id}")
+    public ResponseEntity<Map<String, Object>> getPostLikes(
+            @PathVariable Long post_id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withUsers){
+        Map<String, Object> response = new LinkedHashMap<>();
+        CursorPage<LikeEntry> likes = likeService.getLikesOfPost(post_id, cursor, size, withUsers);
+        response.put("status", true);
+        response.put("result", likes.getContent());
+        response.put("nextCursor", likes.getNextCursor());
+        response.put("hasNext", likes.hasNext());
+        return ResponseEntity.ok(response);
     }
-    List<LikesPayload> likes = likeService.getAllLikesOfPost(post_id);
-    response.put("status", true);
-    response.put("result", likes);
-    return ResponseEntity.ok(response);
+    @GetMapping(value = "/post/likes/{post_id}", params = "count=true")
+    public ResponseEntity<Map<String, Object>> countPostLikes(@PathVariable Long post_id){
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", true);
+        response.put("result", likeService.countLikes(post_id));
+        return ResponseEntity.ok(response);
     }
 
+//    liked / bookmarked / commented flags of the current user for a page of posts
+    @PostMapping("/viewer-state")
+    public ResponseEntity<Map<String, Object>> getViewerState(@RequestBody ViewerStateRequest request, @CurrentUser UserPrincipal principal){
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", true);
+        response.put("result", viewerStateService.getViewerState(principal.getId(), request.getPostIds()));
+        return ResponseEntity.ok(response);
+    }
+
+//    keyset pages of a post's bookmarks, newest first, same paging as /post/likes/{post_id}
     @GetMapping("/post/bookmarks/{post_id}")
-    public ResponseEntity<Map<String, Object>> getPostBookMarks(@PathVariable Long post_id){
+    public ResponseEntity<Map<String, Object>> getPostBookMarks(
+            @PathVariable Long post_id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withUsers){
         Map<String, Object> response = new LinkedHashMap<>();
-        Post post = postService.getPostById(post_id);
-        if(post == null) {
-            throw new NotFoundException("Post not found");
-        }
-        List<BookMarkPayload> bookMarks = bookMarkService.getAllBookMarksOfPost(post_id);
+        CursorPage<BookMarkEntry> bookMarks = bookMarkService.getBookMarksOfPost(post_id, cursor, size, withUsers);
         response.put("status", true);
-        response.put("result", bookMarks);
+        response.put("result", bookMarks.getContent());
+        response.put("nextCursor", bookMarks.getNextCursor());
+        response.put("hasNext", bookMarks.hasNext());
+        return ResponseEntity.ok(response);
+    }
+    @GetMapping(value = "/post/bookmarks/{post_id}", params = "count=true")
+    public ResponseEntity<Map<String, Object>> countPostBookMarks(@PathVariable Long post_id){
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", true);
+        response.put("result", bookMarkService.countBookMarks(post_id));
         return ResponseEntity.ok(response);
     }
 
@@ -298,48 +347,52 @@ public ResponseEntity<Map<String, Object>> getPostLikes(@PathVariable Long post_
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/bookmarks/{user_id}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamPostByBookMarks(@PathVariable Long user_id){
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(postService.streamPostByBookMarksId(user_id));
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<Map<String, Object>> searchPost(@RequestParam String searchTerm){
+    public ResponseEntity<Map<String, Object>> searchPost(
+            @RequestParam String searchTerm,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @CurrentUser UserPrincipal principal){
         Map<String, Object> response = new LinkedHashMap<>();
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new NotFoundException("Please Log in"));
-        List<PostSummary> posts = postService.getAllPostSummaries(user.getId());
-        List<PostSummary> filteredPosts = new ArrayList<>();
-
-        for(PostSummary post : posts) {
-            if(post.getTitle().toLowerCase().contains(searchTerm.toLowerCase())) {
-                filteredPosts.add(post);
-            }
-        }
+        List<PostSummary> filteredPosts = postService.searchPosts(searchTerm, principal.getId(), page, size);
 
         response.put("status", true);
         response.put("result", filteredPosts);
+        response.put("currentPage", page);
         return ResponseEntity.ok(response);
     }
 
 
 
     @PutMapping(value = "/update-post/{postId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Map<String, Object>> updatePost(@PathVariable Long postId, @RequestPart Post post, @RequestPart(value = "file", required = false)  MultipartFile file) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new NotFoundException("User not found"));
+    public ResponseEntity<Map<String, Object>> updatePost(@PathVariable Long postId, @RequestPart Post post, @RequestPart(value = "file", required = false)  MultipartFile file, @CurrentUser UserPrincipal principal) {
         Post existingPost = postService.getPostById(postId);
         Map<String, Object> response = new LinkedHashMap<>();
 
-        if(file != null && !file.isEmpty()) {
-            String filePath = s3FileStorageUtils.uploadProfilePic(file);
-            existingPost.setImgUrl(filePath);
-        }
-
-
-        if(!Objects.equals(user.getId(), existingPost.getUser().getId())){
+        if(!Objects.equals(principal.getId(), existingPost.getUser().getId())){
             response.put("status", false);
             response.put("message", "You are not authorized to update this profile");
         } else {
             if(post.getTitle()!= null) existingPost.setTitle(post.getTitle());
             if(post.getContent() != null) existingPost.setContent(post.getContent());
-            Post updatedPost = postService.savePost(user, existingPost);
+            PendingUpload upload = null;
+            String previousImgUrl = existingPost.getImgUrl();
+            if(file != null && !file.isEmpty()) {
+                upload = s3FileStorageUtils.uploadPostImage(file);
+                existingPost.setImgUrl(upload.getPendingUrl());
+            }
+            if(upload == null) {
+                postService.savePost(userRepository.getReferenceById(principal.getId()), existingPost);
+            } else {
+                postService.savePost(userRepository.getReferenceById(principal.getId()), existingPost, upload, previousImgUrl);
+            }
             response.put("status", true);
             response.put("result", "Post Updated successfully");
         }
@@ -1,17 +1,17 @@
 package com.blog_api_core.controllers;
 
 import com.blog_api_core.exceptions.NotFoundException;
-import com.blog_api_core.models.Post;
+import com.blog_api_core.jwt.CurrentUser;
+import com.blog_api_core.jwt.UserPrincipal;
 import com.blog_api_core.models.Profile;
 import com.blog_api_core.models.User;
+import com.blog_api_core.payload.PendingUpload;
 import com.blog_api_core.payload.ProfileSummary;
 import com.blog_api_core.repository.UserRepository;
 import com.blog_api_core.services.ProfileService;
 import com.blog_api_core.utils.S3FileStorageUtils;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -36,27 +36,27 @@ public class ProfileController {
     }
 
     @PostMapping(value = "/set-profile", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Map<String, Object>> setProfile(@RequestPart("file") MultipartFile file, @RequestPart("profile") Profile profile) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() ->new NotFoundException("User not found"));
-
+    public ResponseEntity<Map<String, Object>> setProfile(@RequestPart("file") MultipartFile file, @RequestPart("profile") Profile profile, @CurrentUser UserPrincipal principal) {
         Profile userProfile = new Profile();
-        userProfile.setUser(user);
+        userProfile.setUser(userRepository.getReferenceById(principal.getId()));
         userProfile.setBio(profile.getBio());
         userProfile.setDisplayName(profile.getDisplayName());
-        //        upload the post image too
+        //        upload the picture in the background; the profile keeps a pending url until it is stored
+        PendingUpload upload = null;
         if(file != null && !file.isEmpty()) {
-            String filePath = s3FileStorageUtils.uploadProfilePic(file);
-            userProfile.setImgUrl(filePath);
+            upload = s3FileStorageUtils.uploadProfilePic(file);
+            userProfile.setImgUrl(upload.getPendingUrl());
         }
 
         Map<String, Object> response = new LinkedHashMap<>();
         try{
-            Profile savedProfile = profileService.saveProfile(userProfile);
+            Profile savedProfile = upload == null
+                    ? profileService.saveProfile(userProfile, principal.getUsername())
+                    : profileService.saveProfile(userProfile, principal.getUsername(), upload, null);
 
             response.put("status", "true");
             response.put("result", savedProfile);
-            response.put("username", username);
+            response.put("username", principal.getUsername());
         } catch (NotFoundException e) {
             throw new NotFoundException("Profile not saved");
         }
@@ -64,9 +64,8 @@ public class ProfileController {
     }
 
     @GetMapping("/current-user")
-    public ResponseEntity<Map<String, Object>> getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Optional<User> user = userRepository.findByUsername(username);
+    public ResponseEntity<Map<String, Object>> getCurrentUser(@CurrentUser UserPrincipal principal) {
+        Optional<User> user = userRepository.findById(principal.getId());
 
         Map<String, Object> response = new LinkedHashMap<>();
         if (user.isPresent()) {
@@ -81,13 +80,8 @@ public class ProfileController {
     }
 
     @GetMapping("/get-user/profile/")
-    public ResponseEntity<Map<String, Object>> getLoggedInUserProfile() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Optional<User> user = userRepository.findByUsername(username);
-        if (user.isEmpty()) {
-            throw new UsernameNotFoundException("User not found");
-        }
-        ProfileSummary profileSummary = profileService.getUserProfile(user.get().getId());
+    public ResponseEntity<Map<String, Object>> getLoggedInUserProfile(@CurrentUser UserPrincipal principal) {
+        ProfileSummary profileSummary = profileService.getUserProfile(principal.getId());
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("status", true);
         response.put("result", profileSummary);
@@ -108,25 +102,25 @@ public class ProfileController {
     }
 
     @PutMapping(value = "/update-profile/{profileId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Map<String, Object>> updateProfile(@PathVariable Long profileId, @RequestPart Profile profile, @RequestPart(value = "file", required = false)  MultipartFile file) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new NotFoundException("User not found"));
+    public ResponseEntity<Map<String, Object>> updateProfile(@PathVariable Long profileId, @RequestPart Profile profile, @RequestPart(value = "file", required = false)  MultipartFile file, @CurrentUser UserPrincipal principal) {
         Profile existingProfile = profileService.getProfileById(profileId);
         Map<String, Object> response = new LinkedHashMap<>();
 
-        if(file != null && !file.isEmpty()) {
-            String filePath = s3FileStorageUtils.uploadProfilePic(file);
-            existingProfile.setImgUrl(filePath);
-        }
-
-
-        if(!Objects.equals(user.getId(), existingProfile.getUser().getId())){
+        if(!Objects.equals(principal.getId(), existingProfile.getUser().getId())){
             response.put("status", false);
             response.put("message", "You are not authorized to update this profile");
         } else {
             if(profile.getBio()!= null) existingProfile.setBio(profile.getBio());
             if(profile.getDisplayName()!= null) existingProfile.setDisplayName(profile.getDisplayName());
-            Profile updatedProfile = profileService.saveProfile(existingProfile);
+            PendingUpload upload = null;
+            String previousImgUrl = existingProfile.getImgUrl();
+            if(file != null && !file.isEmpty()) {
+                upload = s3FileStorageUtils.uploadProfilePic(file);
+                existingProfile.setImgUrl(upload.getPendingUrl());
+            }
+            Profile updatedProfile = upload == null
+                    ? profileService.saveProfile(existingProfile, principal.getUsername())
+                    : profileService.saveProfile(existingProfile, principal.getUsername(), upload, previousImgUrl);
             response.put("status", true);
             response.put("result", updatedProfile);
         }
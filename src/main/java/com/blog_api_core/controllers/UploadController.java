@@ -0,0 +1,49 @@
+package com.blog_api_core.controllers;
+
+import com.blog_api_core.exceptions.NotFoundException;
+import com.blog_api_core.jwt.CurrentUser;
+import com.blog_api_core.jwt.UserPrincipal;
+import com.blog_api_core.services.DirectUploadService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@CrossOrigin
+@RequestMapping("/uploads")
+public class UploadController {
+    private final DirectUploadService directUploadService;
+
+    public UploadController(DirectUploadService directUploadService) {
+        this.directUploadService = directUploadService;
+    }
+
+//    step 1: get a presigned url, then PUT the file to it with the returned headers
+    @PostMapping("/presign")
+    public ResponseEntity<Map<String, Object>> presign(@RequestParam String contentType, @CurrentUser UserPrincipal principal) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", true);
+        response.put("result", directUploadService.presign(principal.getId(), contentType));
+        return ResponseEntity.ok(response);
+    }
+
+//    step 2: attach the uploaded key to a post or profile (target=post|profile)
+    @PostMapping("/finalize")
+    public ResponseEntity<Map<String, Object>> finalizeUpload(
+            @RequestParam String key,
+            @RequestParam String target,
+            @RequestParam Long targetId,
+            @CurrentUser UserPrincipal principal) {
+        String url = switch (target) {
+            case "post" -> directUploadService.attachToPost(principal.getId(), key, targetId);
+            case "profile" -> directUploadService.attachToProfile(principal.getId(), principal.getUsername(), key, targetId);
+            default -> throw new NotFoundException("Unknown upload target: " + target);
+        };
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", true);
+        response.put("result", url);
+        return ResponseEntity.ok(response);
+    }
+}
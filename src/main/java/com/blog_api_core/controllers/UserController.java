@@ -1,13 +1,18 @@
 package com.blog_api_core.controllers;
 
+import com.blog_api_core.jwt.CurrentUser;
+import com.blog_api_core.jwt.UserPrincipal;
 import com.blog_api_core.models.Profile;
 import com.blog_api_core.models.User;
 import com.blog_api_core.payload.ProfileSummary;
 import com.blog_api_core.repository.UserRepository;
+import com.blog_api_core.services.PrincipalCache;
 import com.blog_api_core.services.ProfileService;
+import com.blog_api_core.utils.JsonStreamWriter;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
 
@@ -15,16 +20,19 @@ import java.util.*;
 public class UserController {
     private final UserRepository userRepository;
     private final ProfileService profileService;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final PrincipalCache principalCache;
 
-    public UserController(UserRepository userRepository, ProfileService profileService) {
+    public UserController(UserRepository userRepository, ProfileService profileService, JsonStreamWriter jsonStreamWriter, PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.profileService = profileService;
+        this.jsonStreamWriter = jsonStreamWriter;
+        this.principalCache = principalCache;
     }
 
     @PostMapping("/update-profile")
-    public ResponseEntity<Map<String, Object>> updateProfile(Profile profile) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Optional<User> user = userRepository.findByUsername(username);
+    public ResponseEntity<Map<String, Object>> updateProfile(Profile profile, @CurrentUser UserPrincipal principal) {
+        Optional<User> user = userRepository.findById(principal.getId());
 
         user.get().setProfile(profile);
 
@@ -36,9 +44,8 @@ public class UserController {
     }
 
     @PostMapping("/bookmark")
-    public ResponseEntity<Map<String, Object>> bookmark() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Optional<User> user = userRepository.findByUsername(username);
+    public ResponseEntity<Map<String, Object>> bookmark(@CurrentUser UserPrincipal principal) {
+        Optional<User> user = userRepository.findById(principal.getId());
 
         Map<String, Object> response = new HashMap<>();
         response.put("status", "success");
@@ -48,12 +55,12 @@ public class UserController {
     }
 
     @PostMapping("/delete-user")
-    public ResponseEntity<Map<String, Object>> deleteUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Optional<User> user = userRepository.findByUsername(username);
+    public ResponseEntity<Map<String, Object>> deleteUser(@CurrentUser UserPrincipal principal) {
+        Optional<User> user = userRepository.findById(principal.getId());
 
         user.get().setIs_deleted(true);
         userRepository.save(user.get());
+        principalCache.invalidate(principal.getUsername());
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("status", "success");
@@ -79,10 +86,24 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping(value = "/get-users", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonStreamWriter.stream("success", () -> userRepository.streamByDeleted(false)));
+    }
+
+    @GetMapping(value = "/get-inactive-users", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamInactiveUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonStreamWriter.stream("success", () -> userRepository.streamByDeleted(true)));
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<Map<String, Object>> searchUser(@RequestParam(required = false) String searchTerm) {
+    public ResponseEntity<Map<String, Object>> searchUser(@RequestParam(required = false) String searchTerm, @RequestParam(defaultValue = "10") int limit) {
         Map<String, Object> response = new LinkedHashMap<>();
-        List<ProfileSummary> users = profileService.searchUser(searchTerm);
+        List<ProfileSummary> users = profileService.searchUser(searchTerm, limit);
         response.put("status", "success");
         response.put("result", users);
 
@@ -1,5 +1,7 @@
 package com.blog_api_core.exceptions;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -32,4 +34,13 @@ public class GlobalException {
         errors.put("error", ex.getMessage());
         return ResponseEntity.ok(errors);
     }
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Map<String, Object>> handleOverloadedException(OverloadedException ex) {
+        Map<String, Object> errors = new HashMap<>();
+        errors.put("status", false);
+        errors.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(errors);
+    }
 }
@@ -0,0 +1,8 @@
+package com.blog_api_core.exceptions;
+
+// Work refused because a bounded queue is full; answered with 503 so clients know to retry later
+public class OverloadedException extends RuntimeException {
+    public OverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.blog_api_core.jwt;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Injects the authenticated UserPrincipal (id, username, roles) into a controller parameter,
+// taken from the token-authenticated security context instead of a findByUsername lookup
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
@@ -0,0 +1,39 @@
+package com.blog_api_core.jwt;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Set;
+
+// Lightweight snapshot of an authenticated user (no password, no entity), held in the principal cache
+public class UserPrincipal implements UserDetails {
+    private final Long id;
+    private final String username;
+    private final Set<GrantedAuthority> authorities;
+
+    public UserPrincipal(Long id, String username, Set<GrantedAuthority> authorities) {
+        this.id = id;
+        this.username = username;
+        this.authorities = Set.copyOf(authorities);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+}
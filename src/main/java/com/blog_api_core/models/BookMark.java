@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "user_bookmarks", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"user_id", "post_id"})
+}, indexes = {
+        @Index(name = "idx_user_bookmarks_post_marked_at", columnList = "post_id, book_marked_at, id")
 })
 public class BookMark {
     @Id
@@ -7,6 +7,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "likes", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"user_id", "post_id"})
+}, indexes = {
+        @Index(name = "idx_likes_post_liked_at", columnList = "post_id, liked_at, id"),
+        @Index(name = "idx_likes_liked_at", columnList = "liked_at")
 })
 public class Like {
     @Id
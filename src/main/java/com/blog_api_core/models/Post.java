@@ -3,12 +3,20 @@ package com.blog_api_core.models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_post_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_post_deleted_at", columnList = "deleted_at"),
+        @Index(name = "idx_post_updated_at", columnList = "updated_at")
+})
+// tombstoned posts are invisible to every JPA load; the native queries filter on deleted_at themselves
+@SQLRestriction("deleted_at IS NULL")
 public class Post {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +28,21 @@ public class Post {
     private String content;
     private String imgUrl;
     private LocalDateTime createdAt = LocalDateTime.now();
+    // denormalized counters, only changed through the PostRepository increment/reconcile queries
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false, columnDefinition = "integer default 0")
+    private int likeCount;
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false, columnDefinition = "integer default 0")
+    private int commentCount;
+    @Column(name = "bookmark_count", nullable = false, insertable = false, updatable = false, columnDefinition = "integer default 0")
+    private int bookmarkCount;
+    // set when the post is deleted; PostPurger removes the row and its children afterwards
+    @Column(name = "deleted_at")
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+    // last JPA write or tombstone; PostSearchIndex re-indexes rows changed after its snapshot
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private LocalDateTime updatedAt;
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL)
     @JsonIgnore
     private List<Comment> comments;
@@ -28,7 +51,8 @@ public class Post {
     @JsonIgnore
     private User user;
 
-    @ManyToMany(cascade = {CascadeType.DETACH, CascadeType.MERGE, CascadeType.PERSIST, CascadeType.REFRESH})
+    // topics are created by TopicDictionary, never through a post, so only the join rows are written here
+    @ManyToMany(cascade = {CascadeType.DETACH, CascadeType.REFRESH})
     @JoinTable(
             name = "post_topics",
             joinColumns = @JoinColumn(name= "post_id"),
@@ -114,6 +138,12 @@ public class Post {
         this.likes = likes;
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -122,6 +152,30 @@ public class Post {
         this.createdAt = createdAt;
     }
 
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(int likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+
+    public int getBookmarkCount() {
+        return bookmarkCount;
+    }
+
+    public void setBookmarkCount(int bookmarkCount) {
+        this.bookmarkCount = bookmarkCount;
+    }
+
     public Set<BookMark> getBookMarks() {
         return bookMarks;
     }
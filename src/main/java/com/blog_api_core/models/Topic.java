@@ -4,6 +4,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "uk_topic_name", columnList = "name", unique = true)
+})
 public class Topic {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
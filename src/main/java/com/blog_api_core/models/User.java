@@ -1,6 +1,7 @@
 package com.blog_api_core.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
 import java.util.List;
@@ -8,6 +9,8 @@ import java.util.Set;
 
 @Entity
 @Table(name = "app_user")
+// write paths attach users by reference (getReferenceById), so a serialized comment may hold a proxy
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,6 +0,0 @@
-package com.blog_api_core.payload;
-
-public interface BookMarkPayload {
-    Long getPostId();
-    Long getUserId();
-}
@@ -0,0 +1,25 @@
+package com.blog_api_core.payload;
+
+import java.util.List;
+
+public class CursorPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
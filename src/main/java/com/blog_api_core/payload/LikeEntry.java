@@ -0,0 +1,17 @@
+package com.blog_api_core.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+// one like in a paginated listing; the user fields are only filled when users are hydrated
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public interface LikeEntry {
+    Long getId();
+    Long getPostId();
+    Long getUserId();
+    LocalDateTime getLikedAt();
+    String getUsername();
+    String getDisplayName();
+    String getUserImgUrl();
+}
@@ -0,0 +1,59 @@
+package com.blog_api_core.payload;
+
+import java.time.LocalDateTime;
+
+// A PostSummary with likedByUser filled in from LikedPostsIndex instead of by the query.
+public class MarkedPostSummary implements PostSummary {
+    private final PostSummary summary;
+    private final int likedByUser;
+
+    public MarkedPostSummary(PostSummary summary, boolean likedByUser) {
+        this.summary = summary;
+        this.likedByUser = likedByUser ? 1 : 0;
+    }
+
+    @Override
+    public Long getPostId() {
+        return summary.getPostId();
+    }
+
+    @Override
+    public String getUsername() {
+        return summary.getUsername();
+    }
+
+    @Override
+    public String getUserImgUrl() {
+        return summary.getUserImgUrl();
+    }
+
+    @Override
+    public String getTitle() {
+        return summary.getTitle();
+    }
+
+    @Override
+    public String getContent() {
+        return summary.getContent();
+    }
+
+    @Override
+    public String getPostImg() {
+        return summary.getPostImg();
+    }
+
+    @Override
+    public int getLikeCount() {
+        return summary.getLikeCount();
+    }
+
+    @Override
+    public Integer getLikedByUser() {
+        return likedByUser;
+    }
+
+    @Override
+    public LocalDateTime getCreatedAt() {
+        return summary.getCreatedAt();
+    }
+}
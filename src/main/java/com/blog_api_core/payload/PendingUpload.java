@@ -0,0 +1,43 @@
+package com.blog_api_core.payload;
+
+import java.util.concurrent.CompletableFuture;
+
+// An image accepted by the upload pipeline but not stored yet. The pending url is what the row holds
+// until the upload finishes; the completion yields the final url (or the failure after all retries).
+// Nothing is uploaded until start(), which is called once the row holding the pending url is saved;
+// if that save fails, discard() drops the spooled file instead.
+public class PendingUpload {
+    public static final String PENDING_URL_PREFIX = "pending:";
+    private final String pendingUrl;
+    private final CompletableFuture<String> completion;
+    private final Runnable start;
+    private final Runnable discard;
+
+    public PendingUpload(String pendingUrl, CompletableFuture<String> completion, Runnable start, Runnable discard) {
+        this.pendingUrl = pendingUrl;
+        this.completion = completion;
+        this.start = start;
+        this.discard = discard;
+    }
+
+    public void start() {
+        start.run();
+    }
+
+    public void discard() {
+        discard.run();
+    }
+
+    public String getPendingUrl() {
+        return pendingUrl;
+    }
+
+    public CompletableFuture<String> getCompletion() {
+        return completion;
+    }
+
+    // what the row goes back to when the upload fails: the previous url, unless that was itself still pending
+    public String fallbackUrl(String previousUrl) {
+        return previousUrl == null || previousUrl.startsWith(PENDING_URL_PREFIX) ? null : previousUrl;
+    }
+}
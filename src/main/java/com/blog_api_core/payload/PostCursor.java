@@ -0,0 +1,55 @@
+package com.blog_api_core.payload;
+
+import com.blog_api_core.exceptions.NotFoundException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque keyset position ordered by (time DESC, id DESC): created_at and post id in the feed,
+// liked_at / bookmarked_at and row id in a post's likes and bookmarks
+public class PostCursor {
+    private final LocalDateTime at;
+    private final Long id;
+
+    public PostCursor(LocalDateTime at, Long id) {
+        this.at = at;
+        this.id = id;
+    }
+
+    // position before the newest row, used for the first page
+    public static PostCursor first() {
+        return new PostCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+    }
+
+    public static PostCursor of(PostSummary post) {
+        return new PostCursor(post.getCreatedAt(), post.getPostId());
+    }
+
+    public static PostCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return first();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new PostCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new NotFoundException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = at + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
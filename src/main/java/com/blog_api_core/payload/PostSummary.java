@@ -1,5 +1,7 @@
 package com.blog_api_core.payload;
 
+import com.blog_api_core.utils.ImageVariant;
+
 import java.time.LocalDateTime;
 
 public interface PostSummary {
@@ -12,4 +14,15 @@ public interface PostSummary {
     int getLikeCount();
     Integer getLikedByUser();
     LocalDateTime getCreatedAt();
+
+    // resized copies of postImg / userImgUrl, so feed cards don't download the full image
+    default String getPostImgThumbnail() {
+        return ImageVariant.THUMBNAIL.urlFrom(getPostImg());
+    }
+    default String getPostImgCard() {
+        return ImageVariant.CARD.urlFrom(getPostImg());
+    }
+    default String getUserImgThumbnail() {
+        return ImageVariant.THUMBNAIL.urlFrom(getUserImgUrl());
+    }
 }
@@ -0,0 +1,8 @@
+package com.blog_api_core.payload;
+
+public interface PostText {
+    Long getId();
+    String getTitle();
+    String getContent();
+    boolean isDeleted();
+}
@@ -0,0 +1,35 @@
+package com.blog_api_core.payload;
+
+import java.time.Instant;
+import java.util.Map;
+
+// A URL the client PUTs the file to directly, with the headers it must send unchanged (they are signed)
+public class PresignedUpload {
+    private final String key;
+    private final String uploadUrl;
+    private final Map<String, String> headers;
+    private final Instant expiresAt;
+
+    public PresignedUpload(String key, String uploadUrl, Map<String, String> headers, Instant expiresAt) {
+        this.key = key;
+        this.uploadUrl = uploadUrl;
+        this.headers = headers;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getUploadUrl() {
+        return uploadUrl;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -1,5 +1,7 @@
 package com.blog_api_core.payload;
 
+import com.blog_api_core.utils.ImageVariant;
+
 public interface ProfileSummary {
     Long getUserId();
     String getUsername();
@@ -7,4 +9,10 @@ public interface ProfileSummary {
     String getBio();
     String getImgUrl();
 
+    default String getImgThumbnail() {
+        return ImageVariant.THUMBNAIL.urlFrom(getImgUrl());
+    }
+    default String getImgCard() {
+        return ImageVariant.CARD.urlFrom(getImgUrl());
+    }
 }
@@ -0,0 +1,32 @@
+package com.blog_api_core.payload;
+
+// what the current user has done on one post, for rendering feed cards
+public class ViewerState {
+    private final Long postId;
+    private final boolean liked;
+    private final boolean bookmarked;
+    private final boolean commented;
+
+    public ViewerState(Long postId, boolean liked, boolean bookmarked, boolean commented) {
+        this.postId = postId;
+        this.liked = liked;
+        this.bookmarked = bookmarked;
+        this.commented = commented;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public boolean isLiked() {
+        return liked;
+    }
+
+    public boolean isBookmarked() {
+        return bookmarked;
+    }
+
+    public boolean isCommented() {
+        return commented;
+    }
+}
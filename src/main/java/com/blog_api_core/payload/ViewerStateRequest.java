@@ -0,0 +1,15 @@
+package com.blog_api_core.payload;
+
+import java.util.List;
+
+public class ViewerStateRequest {
+    private List<Long> postIds;
+
+    public List<Long> getPostIds() {
+        return postIds;
+    }
+
+    public void setPostIds(List<Long> postIds) {
+        this.postIds = postIds;
+    }
+}
@@ -3,12 +3,13 @@ package com.blog_api_core.repository;
 import com.blog_api_core.models.BookMark;
 import com.blog_api_core.models.Post;
 import com.blog_api_core.models.User;
-import com.blog_api_core.payload.BookMarkPayload;
-import com.blog_api_core.payload.LikesPayload;
+import com.blog_api_core.payload.BookMarkEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,7 +17,23 @@ public interface BookMarkRepository extends JpaRepository<BookMark, Long> {
     boolean existsByUserAndPost(User user, Post post);
     Optional<BookMark> findByUserAndPost(User user, Post post);
 
+    // same single-statement toggle as LikeRepository.toggleLike, moving post.bookmark_count:
+    // 1 bookmarked, -1 removed, 0 unchanged
+    @Transactional
+    @Query(value = "WITH deleted AS (DELETE FROM user_bookmarks WHERE user_id = :userId AND post_id = :postId RETURNING id), " +
+            "inserted AS (INSERT INTO user_bookmarks (user_id, post_id, book_marked_at) SELECT :userId, :postId, now() WHERE NOT EXISTS (SELECT 1 FROM deleted) AND EXISTS (SELECT 1 FROM post WHERE id = :postId AND deleted_at IS NULL) ON CONFLICT (user_id, post_id) DO NOTHING RETURNING id), " +
+            "delta AS (SELECT (SELECT COUNT(*) FROM inserted) - (SELECT COUNT(*) FROM deleted) AS value), " +
+            "counted AS (UPDATE post SET bookmark_count = bookmark_count + (SELECT value FROM delta) WHERE id = :postId AND (SELECT value FROM delta) <> 0) " +
+            "SELECT value FROM delta", nativeQuery = true)
+    long toggleBookMark(@Param("userId") Long userId, @Param("postId") Long postId);
 
-    @Query(value = "SELECT br.post_id as postId, br.user_id as userId FROM user_bookmarks br WHERE br.post_id = :postId", nativeQuery = true)
-    List<BookMarkPayload> findBookMarkByPost(@Param("postId") Long postId);
+    // keyset pages of a post's bookmarks, newest first, walking (post_id, book_marked_at, id)
+    @Query(value = "SELECT br.id AS id, br.post_id AS postId, br.user_id AS userId, br.book_marked_at AS bookMarkedAt FROM user_bookmarks br " +
+            "WHERE br.post_id = :postId AND (br.book_marked_at, br.id) < (:before, :beforeId) ORDER BY br.book_marked_at DESC, br.id DESC LIMIT :limit", nativeQuery = true)
+    List<BookMarkEntry> findBookMarksByPostBefore(@Param("postId") Long postId, @Param("before") LocalDateTime before, @Param("beforeId") Long beforeId, @Param("limit") int limit);
+
+    @Query(value = "SELECT br.id AS id, br.post_id AS postId, br.user_id AS userId, br.book_marked_at AS bookMarkedAt, u.username AS username, pr.display_name AS displayName, pr.img_url AS userImgUrl FROM user_bookmarks br " +
+            "JOIN app_user u ON u.id = br.user_id LEFT JOIN profile pr ON pr.user_id = br.user_id " +
+            "WHERE br.post_id = :postId AND (br.book_marked_at, br.id) < (:before, :beforeId) ORDER BY br.book_marked_at DESC, br.id DESC LIMIT :limit", nativeQuery = true)
+    List<BookMarkEntry> findBookMarksWithUsersByPostBefore(@Param("postId") Long postId, @Param("before") LocalDateTime before, @Param("beforeId") Long beforeId, @Param("limit") int limit);
 }
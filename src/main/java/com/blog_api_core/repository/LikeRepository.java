@@ -3,19 +3,41 @@ package com.blog_api_core.repository;
 import com.blog_api_core.models.Like;
 import com.blog_api_core.models.Post;
 import com.blog_api_core.models.User;
-import com.blog_api_core.payload.LikesPayload;
+import com.blog_api_core.payload.LikeEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 @Repository
 public interface LikeRepository extends JpaRepository<Like, Long> {
     boolean existsByUserAndPost(User user, Post post);
     Optional<Like> findByUserAndPost(User user, Post post);
+    boolean existsByUserIdAndPostId(Long userId, Long postId);
 
-    @Query(value = "SELECT l.post_id as postId, l.user_id as userId FROM likes l WHERE l.post_id = :postId", nativeQuery = true)
-    List<LikesPayload> findLikesByPost(@Param("postId") Long postId);
+    // Flips the like in one statement without loading User or Post: deletes the row if present,
+    // otherwise inserts it (ON CONFLICT makes concurrent double clicks harmless), and moves
+    // post.like_count by the same amount. Returns 1 when liked, -1 when unliked, 0 when nothing
+    // changed (post missing, or a concurrent toggle won).
+    @Transactional
+    @Query(value = "WITH deleted AS (DELETE FROM likes WHERE user_id = :userId AND post_id = :postId RETURNING id), " +
+            "inserted AS (INSERT INTO likes (user_id, post_id, liked_at) SELECT :userId, :postId, now() WHERE NOT EXISTS (SELECT 1 FROM deleted) AND EXISTS (SELECT 1 FROM post WHERE id = :postId AND deleted_at IS NULL) ON CONFLICT (user_id, post_id) DO NOTHING RETURNING id), " +
+            "delta AS (SELECT (SELECT COUNT(*) FROM inserted) - (SELECT COUNT(*) FROM deleted) AS value), " +
+            "counted AS (UPDATE post SET like_count = like_count + (SELECT value FROM delta) WHERE id = :postId AND (SELECT value FROM delta) <> 0) " +
+            "SELECT value FROM delta", nativeQuery = true)
+    long toggleLike(@Param("userId") Long userId, @Param("postId") Long postId);
+
+    // keyset pages of a post's likes, newest first, walking (post_id, liked_at, id)
+    @Query(value = "SELECT l.id AS id, l.post_id AS postId, l.user_id AS userId, l.liked_at AS likedAt FROM likes l " +
+            "WHERE l.post_id = :postId AND (l.liked_at, l.id) < (:before, :beforeId) ORDER BY l.liked_at DESC, l.id DESC LIMIT :limit", nativeQuery = true)
+    List<LikeEntry> findLikesByPostBefore(@Param("postId") Long postId, @Param("before") LocalDateTime before, @Param("beforeId") Long beforeId, @Param("limit") int limit);
+
+    @Query(value = "SELECT l.id AS id, l.post_id AS postId, l.user_id AS userId, l.liked_at AS likedAt, u.username AS username, pr.display_name AS displayName, pr.img_url AS userImgUrl FROM likes l " +
+            "JOIN app_user u ON u.id = l.user_id LEFT JOIN profile pr ON pr.user_id = l.user_id " +
+            "WHERE l.post_id = :postId AND (l.liked_at, l.id) < (:before, :beforeId) ORDER BY l.liked_at DESC, l.id DESC LIMIT :limit", nativeQuery = true)
+    List<LikeEntry> findLikesWithUsersByPostBefore(@Param("postId") Long postId, @Param("before") LocalDateTime before, @Param("beforeId") Long beforeId, @Param("limit") int limit);
 }
@@ -2,47 +2,153 @@ package com.blog_api_core.repository;
 
 import com.blog_api_core.models.Post;
 import com.blog_api_core.payload.PostSummary;
+import com.blog_api_core.payload.PostText;
 import com.blog_api_core.payload.SinglePost;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
-import org.springframework.security.core.parameters.P;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
 
     // maps the post to the user who created it
-    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.created_at as createdAt, p.content AS content, p.img_url AS postImg, COUNT(l.user_id) AS likeCount, MAX(CASE WHEN l.user_id = :userId THEN 1 ELSE 0 END) AS likedByUser FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id LEFT JOIN likes l ON l.post_id = p.id GROUP BY p.id, pr.img_url, u.username, p.title, p.content, p.img_url, p.created_at", nativeQuery = true)
-    List<PostSummary> findPostSummaries(@Param("userId") Long userId);
+    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.created_at as createdAt, p.content AS content, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id WHERE p.deleted_at IS NULL", nativeQuery = true)
+    List<PostSummary> findPostSummaries();
 
     //    get post according to Bookmark id
-    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.created_at as createdAt, p.content AS content, p.img_url AS postImg, COUNT(l.user_id) AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id   LEFT JOIN likes l ON l.post_id = p.id JOIN user_bookmarks bm ON bm.post_id = p.id WHERE bm.user_id = ?1 GROUP BY p.id, u.username, p.title, p.content, pr.img_url, p.img_url, p.created_at", nativeQuery = true)
+    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.created_at as createdAt, p.content AS content, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id JOIN user_bookmarks bm ON bm.post_id = p.id WHERE p.deleted_at IS NULL AND bm.user_id = ?1", nativeQuery = true)
     List<PostSummary> findPostSummariesByBookMarksId(Long userId);
 
 
     // maps the post to the user who created it and paginates the results
-    @Query(value = "SELECT u.username AS username, p.id as postId, p.title AS title, pr.img_url as userImgUrl, p.content AS content, p.created_at As createdAt, p.img_url AS postImg, COUNT(l.user_id) AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id  JOIN profile pr ON p.user_id = pr.user_id LEFT JOIN likes l ON l.post_id = p.id GROUP BY p.id, u.username, pr.img_url, p.title, p.content, p.img_url, p.created_at", countQuery = "SELECT COUNT(*) FROM post", nativeQuery = true)
+    @Query(value = "SELECT u.username AS username, p.id as postId, p.title AS title, pr.img_url as userImgUrl, p.content AS content, p.created_at As createdAt, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id  JOIN profile pr ON p.user_id = pr.user_id WHERE p.deleted_at IS NULL", countQuery = "SELECT COUNT(*) FROM post WHERE deleted_at IS NULL", nativeQuery = true)
     Page<PostSummary> findPostSummariesWithPagination(Pageable pageable);
 
+    // keyset pagination: seeks past the cursor on (created_at, id) instead of skipping rows, and needs no count query
+    @Query(value = "SELECT u.username AS username, p.id as postId, p.title AS title, pr.img_url as userImgUrl, p.content AS content, p.created_at As createdAt, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id  JOIN profile pr ON p.user_id = pr.user_id WHERE p.deleted_at IS NULL AND (p.created_at, p.id) < (:createdAt, :postId) ORDER BY p.created_at DESC, p.id DESC LIMIT :limit", nativeQuery = true)
+    List<PostSummary> findPostSummariesBeforeCursor(@Param("createdAt") LocalDateTime createdAt, @Param("postId") Long postId, @Param("limit") int limit);
+
 //    get post according to post topic
-    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.content AS content, p.created_at AS createdAt, p.img_url AS postImg, COUNT(l.user_id) AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id   LEFT JOIN likes l ON l.post_id = p.id JOIN post_topics pt ON pt.post_id = p.id WHERE pt.topic_id = ?1 GROUP BY p.id, u.username, p.title, p.content, pr.img_url, p.img_url, p.created_at", nativeQuery = true)
+    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.content AS content, p.created_at AS createdAt, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id JOIN post_topics pt ON pt.post_id = p.id WHERE p.deleted_at IS NULL AND pt.topic_id = ?1", nativeQuery = true)
     List<PostSummary> findPostSummariesByTopicId(Long topicId);
 
+    // topic feed pages older than what TopicFeedIndex keeps in memory
+    @Query(value = "SELECT p.id FROM post p JOIN post_topics pt ON pt.post_id = p.id WHERE p.deleted_at IS NULL AND pt.topic_id = :topicId ORDER BY p.created_at DESC, p.id DESC OFFSET :offset LIMIT :limit", nativeQuery = true)
+    List<Long> findPostIdsByTopicId(@Param("topicId") Long topicId, @Param("offset") int offset, @Param("limit") int limit);
+
 
-    @Query(value = "SELECT u.username AS username, p.id as postId, p.title AS title, p.created_at as createdAt, pr.img_url as userImgUrl, p.content AS content, p.img_url AS postImg, COUNT(l.user_id) AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id  LEFT JOIN likes l ON l.post_id = p.id WHERE u.id = ?1 GROUP BY p.id, u.username, p.title, p.content, pr.img_url, p.img_url, p.created_at", countQuery = "SELECT COUNT(*) FROM post", nativeQuery = true)
+    @Query(value = "SELECT u.username AS username, p.id as postId, p.title AS title, p.created_at as createdAt, pr.img_url as userImgUrl, p.content AS content, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id WHERE p.deleted_at IS NULL AND u.id = ?1", nativeQuery = true)
     List<PostSummary> findPostsByUserId(Long userId);
 
     // get post according to username
-    @Query(value = "SELECT u.username AS username, p.id as postId, p.title AS title, p.created_at AS createdAt, pr.img_url as userImgUrl, p.content AS content, p.img_url AS postImg, COUNT(l.user_id) AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON pr.user_id = p.user_id LEFT JOIN likes l ON l.post_id = p.id WHERE u.username = :username GROUP BY p.id, u.username, p.title, p.content, pr.img_url, p.img_url, p.created_at ", countQuery = "SELECT COUNT(*) FROM post", nativeQuery = true)
+    @Query(value = "SELECT u.username AS username, p.id as postId, p.title AS title, p.created_at AS createdAt, pr.img_url as userImgUrl, p.content AS content, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON pr.user_id = p.user_id WHERE p.deleted_at IS NULL AND u.username = :username", nativeQuery = true)
     List<PostSummary> findPostsByUsername(@Param("username") String username);
 
 
-    @Query(value = "SELECT p.id as id, u.username AS username, pr.img_url as userImgUrl, pr.display_name AS displayName, p.title as title, p.created_at as createdAt, p.content as content, p.img_url as imgUrl, COUNT(DISTINCT l.id) as likesCount, COUNT(DISTINCT c.id) as commentsCount FROM post p JOIN app_user u ON u.id = p.user_id JOIN profile pr ON pr.user_id = p.user_id LEFT JOIN likes l ON p.id = l.post_id LEFT JOIN comment c ON c.post_id = p.id WHERE p.id = :postId GROUP BY u.username, p.created_at, p.id, p.title, p.content, p.img_url, pr.img_url, pr.display_name", nativeQuery = true)
+    @Query(value = "SELECT p.id as id, u.username AS username, pr.img_url as userImgUrl, pr.display_name AS displayName, p.title as title, p.created_at as createdAt, p.content as content, p.img_url as imgUrl, p.like_count as likesCount, p.comment_count as commentsCount FROM post p JOIN app_user u ON u.id = p.user_id JOIN profile pr ON pr.user_id = p.user_id WHERE p.deleted_at IS NULL AND p.id = :postId", nativeQuery = true)
     SinglePost findSinglePostById(@Param("postId") Long postId);
-    
+
+    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.created_at as createdAt, p.content AS content, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id WHERE p.deleted_at IS NULL AND p.id IN (:postIds)", nativeQuery = true)
+    List<PostSummary> findPostSummariesByIds(@Param("postIds") Collection<Long> postIds);
+
+    // feeds the search index without loading entities or their associations
+    @Query(value = "SELECT p.id AS id, p.title AS title, p.content AS content, false AS deleted FROM post p WHERE p.deleted_at IS NULL AND p.id > :afterId ORDER BY p.id LIMIT :limit", nativeQuery = true)
+    List<PostText> findPostTextAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    // posts written or tombstoned since a search index snapshot, deleted ones included so they can be dropped
+    @Query(value = "SELECT p.id AS id, p.title AS title, p.content AS content, p.deleted_at IS NOT NULL AS deleted FROM post p WHERE p.updated_at >= :since AND p.id > :afterId ORDER BY p.id LIMIT :limit", nativeQuery = true)
+    List<PostText> findPostTextChangedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    // cursor-backed variants of the list queries for the streaming endpoints; callers must consume
+    // them inside a transaction and close the stream
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Post p")
+    Stream<Post> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.created_at as createdAt, p.content AS content, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id WHERE p.deleted_at IS NULL", nativeQuery = true)
+    Stream<PostSummary> streamPostSummaries();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.content AS content, p.created_at AS createdAt, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id JOIN post_topics pt ON pt.post_id = p.id WHERE p.deleted_at IS NULL AND pt.topic_id = :topicId", nativeQuery = true)
+    Stream<PostSummary> streamPostSummariesByTopicId(@Param("topicId") Long topicId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT u.username AS username, p.id as postId, pr.img_url as userImgUrl, p.title AS title, p.created_at as createdAt, p.content AS content, p.img_url AS postImg, p.like_count AS likeCount FROM post p JOIN app_user u ON p.user_id = u.id JOIN profile pr ON p.user_id = pr.user_id JOIN user_bookmarks bm ON bm.post_id = p.id WHERE p.deleted_at IS NULL AND bm.user_id = :userId", nativeQuery = true)
+    Stream<PostSummary> streamPostSummariesByBookMarksId(@Param("userId") Long userId);
+
+    // counters are maintained in the same transaction as the like / comment write
+    @Modifying
+    @Query(value = "UPDATE post SET like_count = like_count + :delta WHERE id = :postId", nativeQuery = true)
+    int incrementLikeCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE post SET comment_count = comment_count + :delta WHERE id = :postId", nativeQuery = true)
+    int incrementCommentCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    // count-only listings, answered from the maintained counters; null when the post doesn't exist
+    @Query(value = "SELECT p.like_count FROM post p WHERE p.deleted_at IS NULL AND p.id = :postId", nativeQuery = true)
+    Integer findLikeCount(@Param("postId") Long postId);
+
+    @Query(value = "SELECT p.bookmark_count FROM post p WHERE p.deleted_at IS NULL AND p.id = :postId", nativeQuery = true)
+    Integer findBookmarkCount(@Param("postId") Long postId);
+
+    @Query(value = "SELECT p.id FROM post p WHERE p.deleted_at IS NULL AND p.id > :afterId ORDER BY p.id LIMIT :limit", nativeQuery = true)
+    List<Long> findPostIdsAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    // taken before reconcileCounters in the same transaction: once the rows are locked, every transaction
+    // that moved a counter has committed, so the recount's snapshot includes its likes/comments/bookmarks
+    @Query(value = "SELECT p.id FROM post p WHERE p.id BETWEEN :fromId AND :toId ORDER BY p.id FOR UPDATE", nativeQuery = true)
+    List<Long> lockPostsForCounterRepair(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // recounts one id range and only rewrites the rows that drifted; run under lockPostsForCounterRepair
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE post p SET like_count = lc.cnt, comment_count = cc.cnt, bookmark_count = bc.cnt FROM " +
+            "(SELECT p2.id AS post_id, COUNT(l.id) AS cnt FROM post p2 LEFT JOIN likes l ON l.post_id = p2.id WHERE p2.id BETWEEN :fromId AND :toId GROUP BY p2.id) lc, " +
+            "(SELECT p3.id AS post_id, COUNT(c.id) AS cnt FROM post p3 LEFT JOIN comment c ON c.post_id = p3.id WHERE p3.id BETWEEN :fromId AND :toId GROUP BY p3.id) cc, " +
+            "(SELECT p4.id AS post_id, COUNT(b.id) AS cnt FROM post p4 LEFT JOIN user_bookmarks b ON b.post_id = p4.id WHERE p4.id BETWEEN :fromId AND :toId GROUP BY p4.id) bc " +
+            "WHERE p.id = lc.post_id AND p.id = cc.post_id AND p.id = bc.post_id AND (p.like_count <> lc.cnt OR p.comment_count <> cc.cnt OR p.bookmark_count <> bc.cnt)", nativeQuery = true)
+    int reconcileCounters(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // only swaps the placeholder, so an image set by a later edit is not overwritten
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE post SET img_url = :imgUrl WHERE id = :postId AND img_url = :pendingUrl", nativeQuery = true)
+    int replacePendingImgUrl(@Param("postId") Long postId, @Param("pendingUrl") String pendingUrl, @Param("imgUrl") String imgUrl);
+
+    // pending urls are "pending:<submit epoch ms>:<uuid>"; ones without a timestamp predate that format
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE post SET img_url = NULL WHERE img_url LIKE 'pending:%' AND " +
+            "CASE WHEN split_part(img_url, ':', 2) ~ '^[0-9]+$' THEN split_part(img_url, ':', 2)::bigint ELSE 0 END < :submittedBefore", nativeQuery = true)
+    int clearPendingImgUrlsBefore(@Param("submittedBefore") long submittedBefore);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE post SET img_url = :imgUrl WHERE id = :postId", nativeQuery = true)
+    int updateImgUrl(@Param("postId") Long postId, @Param("imgUrl") String imgUrl);
+
+    // hides the post from every query at once; the row and its children are purged later
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE post SET deleted_at = now(), updated_at = now() WHERE id = :postId AND deleted_at IS NULL", nativeQuery = true)
+    int tombstone(@Param("postId") Long postId);
+
+    @Query(value = "SELECT p.id FROM post p WHERE p.deleted_at IS NOT NULL ORDER BY p.deleted_at LIMIT :limit", nativeQuery = true)
+    List<Long> findTombstonedPostIds(@Param("limit") int limit);
 }
@@ -3,10 +3,13 @@ package com.blog_api_core.repository;
 import com.blog_api_core.models.Profile;
 import com.blog_api_core.payload.ProfileSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,6 +18,27 @@ public interface ProfileRepository extends JpaRepository<Profile, Long> {
             "FROM app_user u JOIN profile pr ON u.id = pr.user_id WHERE u.id = :userId", nativeQuery = true)
     ProfileSummary findUserProfile(@Param("userId") Long userId);
 
-    @Query(value = "SELECT u.username as username, u.id as userId, pr.display_name as displayName, pr.bio as bio, pr.img_url as imgUrl FROM app_user u JOIN profile pr ON u.id = pr.user_id WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(pr.display_name) LIKE LOWER(CONCAT('%', :searchTerm, '%'))", nativeQuery = true)
-    List<ProfileSummary> getAllMatchedResults( @Param("searchTerm") String searchTerm);
+    @Query(value = "SELECT u.username as username, u.id as userId, pr.display_name as displayName, pr.bio as bio, pr.img_url as imgUrl FROM app_user u JOIN profile pr ON u.id = pr.user_id WHERE u.id IN (:userIds)", nativeQuery = true)
+    List<ProfileSummary> findUserProfilesByIds(@Param("userIds") Collection<Long> userIds);
+
+    // feeds the user search index, ordered by user id for batching
+    @Query(value = "SELECT u.username as username, u.id as userId, pr.display_name as displayName FROM app_user u JOIN profile pr ON u.id = pr.user_id WHERE u.id > :afterId ORDER BY u.id LIMIT :limit", nativeQuery = true)
+    List<ProfileSummary> findSearchableUsersAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE profile SET img_url = :imgUrl WHERE id = :profileId AND img_url = :pendingUrl", nativeQuery = true)
+    int replacePendingImgUrl(@Param("profileId") Long profileId, @Param("pendingUrl") String pendingUrl, @Param("imgUrl") String imgUrl);
+
+    // same sweep as PostRepository.clearPendingImgUrlsBefore
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE profile SET img_url = NULL WHERE img_url LIKE 'pending:%' AND " +
+            "CASE WHEN split_part(img_url, ':', 2) ~ '^[0-9]+$' THEN split_part(img_url, ':', 2)::bigint ELSE 0 END < :submittedBefore", nativeQuery = true)
+    int clearPendingImgUrlsBefore(@Param("submittedBefore") long submittedBefore);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE profile SET img_url = :imgUrl WHERE id = :profileId", nativeQuery = true)
+    int updateImgUrl(@Param("profileId") Long profileId, @Param("imgUrl") String imgUrl);
 }
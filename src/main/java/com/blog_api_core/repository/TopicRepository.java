@@ -1,6 +1,5 @@
 package com.blog_api_core.repository;
 
-import com.blog_api_core.models.Comment;
 import com.blog_api_core.models.Topic;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
@@ -8,6 +7,6 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface TopicRepository extends JpaRepository<Topic, Integer> {
+public interface TopicRepository extends JpaRepository<Topic, Long> {
     Optional<Topic> findByName(String name);
 }
@@ -2,22 +2,35 @@ package com.blog_api_core.repository;
 
 import com.blog_api_core.models.Like;
 import com.blog_api_core.models.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     Optional<User> findByUsername(String username);
     Boolean existsByUsername(String username);
+    // id only, without hydrating the user and its EAGER roles
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
 //  Get all the active users
     @Query("SELECT u FROM User u WHERE u.is_deleted = false")
     List<User> findAllActive();
 //  Get all the in-active users
     @Query("SELECT u FROM User u WHERE u.is_deleted = true")
     List<User> findAllInActive();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u FROM User u WHERE u.is_deleted = :deleted")
+    Stream<User> streamByDeleted(@Param("deleted") boolean deleted);
 }
@@ -1,7 +1,12 @@
 package com.blog_api_core.services;
 
-import com.blog_api_core.payload.BookMarkPayload;
+import com.blog_api_core.exceptions.NotFoundException;
+import com.blog_api_core.payload.BookMarkEntry;
+import com.blog_api_core.payload.CursorPage;
+import com.blog_api_core.payload.PostCursor;
 import com.blog_api_core.repository.BookMarkRepository;
+import com.blog_api_core.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -9,10 +14,48 @@ import java.util.List;
 @Service
 public class BookMarkService {
     private final BookMarkRepository bookMarkRepository;
-    public BookMarkService(BookMarkRepository bookMarkRepository) {
+    private final PostRepository postRepository;
+    @Value("${spring.app.reactionsMaxPageSize:100}")
+    private int maxPageSize;
+    public BookMarkService(BookMarkRepository bookMarkRepository, PostRepository postRepository) {
         this.bookMarkRepository = bookMarkRepository;
+        this.postRepository = postRepository;
     }
-    public List<BookMarkPayload> getAllBookMarksOfPost(Long postId) {
-        return bookMarkRepository.findBookMarkByPost(postId);
+    // newest first; user display info is only joined in when asked for
+    public CursorPage<BookMarkEntry> getBookMarksOfPost(Long postId, String cursor, int pageSize, boolean withUsers) {
+        // checked up front: the rows of a deleted post outlive its tombstone
+        if (!postRepository.existsById(postId)) {
+            throw new NotFoundException("Post not found");
+        }
+        PostCursor position = PostCursor.decode(cursor);
+        pageSize = Math.min(Math.max(1, pageSize), maxPageSize);
+        // fetch one extra row to find out whether there is a next page
+        List<BookMarkEntry> rows = withUsers
+                ? bookMarkRepository.findBookMarksWithUsersByPostBefore(postId, position.getAt(), position.getId(), pageSize + 1)
+                : bookMarkRepository.findBookMarksByPostBefore(postId, position.getAt(), position.getId(), pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<BookMarkEntry> page = rows.subList(0, pageSize);
+        BookMarkEntry last = page.get(pageSize - 1);
+        return new CursorPage<>(page, new PostCursor(last.getBookMarkedAt(), last.getId()).encode());
+    }
+
+    // served from post.bookmark_count, so it never touches user_bookmarks
+    public int countBookMarks(Long postId) {
+        Integer count = postRepository.findBookmarkCount(postId);
+        if (count == null) {
+            throw new NotFoundException("Post not found");
+        }
+        return count;
+    }
+
+    // returns true when the post is now bookmarked, false when the bookmark was removed
+    public boolean toggleBookMark(Long userId, Long postId) {
+        long delta = bookMarkRepository.toggleBookMark(userId, postId);
+        if (delta == 0 && !postRepository.existsById(postId)) {
+            throw new NotFoundException("Post not found");
+        }
+        return delta >= 0;
     }
 }
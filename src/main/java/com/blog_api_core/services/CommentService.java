@@ -1,10 +1,13 @@
 package com.blog_api_core.services;
 
+import com.blog_api_core.exceptions.NotFoundException;
 import com.blog_api_core.models.Comment;
 import com.blog_api_core.models.Post;
 import com.blog_api_core.payload.CommentPayload;
 import com.blog_api_core.repository.CommentRepository;
+import com.blog_api_core.repository.PostRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -12,15 +15,30 @@ import java.util.List;
 public class CommentService {
     private final CommentRepository commentRepository;
     private final PostService postService;
-    public CommentService(CommentRepository commentRepository, PostService postService) {
+    private final PostRepository postRepository;
+    private final PostCache postCache;
+    private final TrendingPosts trendingPosts;
+    public CommentService(CommentRepository commentRepository, PostService postService, PostRepository postRepository, PostCache postCache, TrendingPosts trendingPosts) {
         this.postService = postService;
         this.commentRepository = commentRepository;
+        this.postRepository = postRepository;
+        this.postCache = postCache;
+        this.trendingPosts = trendingPosts;
     }
 
+    @Transactional
     public Comment saveComment(Long post_id, Comment comment) {
         Post post = postService.getPostById(post_id);
+        // deleted posts are filtered by getPostById too; commenting on them would also feed trending a phantom id
+        if (post == null) {
+            throw new NotFoundException("Post not found");
+        }
         comment.setPost(post);
-        return commentRepository.save(comment);
+        Comment savedComment = commentRepository.save(comment);
+        postRepository.incrementCommentCount(post_id, 1);
+        postCache.invalidate(post_id);
+        trendingPosts.commented(post_id);
+        return savedComment;
     }
 
     public List<CommentPayload> findAllCommentsForPost(Long post_id) {
@@ -1,5 +1,6 @@
 package com.blog_api_core.services;
 
+import com.blog_api_core.jwt.UserPrincipal;
 import com.blog_api_core.models.User;
 import com.blog_api_core.repository.UserRepository;
 import org.springframework.security.core.GrantedAuthority;
@@ -9,31 +10,51 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepository;
-    public CustomUserDetailsService(UserRepository userRepository) {
+    private final PrincipalCache principalCache;
+    public CustomUserDetailsService(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
+    }
+
+    // used per authenticated request: served from the principal cache, only a cold user hits the database.
+    // Deleted users are never cached, so invalidating their entry revokes any token they still hold.
+    public UserPrincipal loadPrincipalByUsername(String username) throws UsernameNotFoundException {
+        return principalCache.get(username, name -> {
+            User user = findActiveUser(name);
+            return new UserPrincipal(user.getId(), user.getUsername(), authoritiesOf(user));
+        });
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        User user = findActiveUser(username);
+
+        return new org.springframework.security.core.userdetails.User(
+                user.getUsername(),
+                user.getPassword(),
+                authoritiesOf(user)
+        );
+    }
+
+    private User findActiveUser(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException(username));
+        if (user.isIs_deleted()) {
+            throw new UsernameNotFoundException(username);
+        }
+        return user;
+    }
 
-        Set<GrantedAuthority> authorities = user
+    private static Set<GrantedAuthority> authoritiesOf(User user) {
+        return user
                 .getRoles()
                 .stream()
                 .map(role -> new SimpleGrantedAuthority(role.getName())).collect(Collectors.toSet());
-
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                authorities
-        );
     }
 }
@@ -0,0 +1,108 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.exceptions.NotFoundException;
+import com.blog_api_core.models.Post;
+import com.blog_api_core.models.Profile;
+import com.blog_api_core.payload.PresignedUpload;
+import com.blog_api_core.repository.PostRepository;
+import com.blog_api_core.repository.ProfileRepository;
+import com.blog_api_core.utils.MediaStorage;
+import com.blog_api_core.utils.S3FileStorageUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.UUID;
+
+// Uploads that go from the client straight to storage: the client asks for a presigned PUT url,
+// uploads the file itself, then finalizes to attach the key to one of its posts or its profile.
+// Keys embed the requesting user's id so a key can only be finalized by the user it was issued to.
+// The bytes never pass through the application, so no resized variants are produced for them.
+// Uploads land under a staging prefix; finalize copies them to the same SHA-256 keys the upload pipeline
+// uses (reusing the object when that image was stored before) and deletes the staging object, and a
+// rejected finalize deletes it too. Staging objects that are never finalized (or re-PUT after finalizing)
+// must be expired by a bucket lifecycle rule on STAGING_PREFIX, e.g. after one day.
+@Service
+public class DirectUploadService {
+    static final String STAGING_PREFIX = "blog-api-core/direct-uploads-staging/";
+
+    private final MediaStorage storage;
+    private final PostRepository postRepository;
+    private final ProfileRepository profileRepository;
+    private final PostCache postCache;
+
+    @Value("${spring.app.presignedUploadTtlSeconds:900}")
+    private long ttlSeconds;
+    @Value("${spring.app.directUploadMaxBytes:20971520}")
+    private long maxBytes;
+
+    public DirectUploadService(MediaStorage storage, PostRepository postRepository, ProfileRepository profileRepository, PostCache postCache) {
+        this.storage = storage;
+        this.postRepository = postRepository;
+        this.profileRepository = profileRepository;
+        this.postCache = postCache;
+    }
+
+    public PresignedUpload presign(Long userId, String contentType) {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new NotFoundException("Only images can be uploaded");
+        }
+        String key = STAGING_PREFIX + userId + "/" + UUID.randomUUID();
+        PresignedUpload upload = storage.presignPut(key, contentType, Duration.ofSeconds(ttlSeconds));
+        if (upload == null) {
+            throw new NotFoundException("Direct uploads are not supported by this storage");
+        }
+        return upload;
+    }
+
+    public String attachToPost(Long userId, String key, Long postId) {
+        checkKey(userId, key);
+        Post post = postRepository.findById(postId).orElseThrow(() -> reject(key, "Post not found"));
+        if (!post.getUser().getId().equals(userId)) {
+            throw reject(key, "You are not authorized to update this post");
+        }
+        String url = promote(key, S3FileStorageUtils.POST_IMAGES);
+        postRepository.updateImgUrl(postId, url);
+        postCache.invalidate(postId);
+        return url;
+    }
+
+    public String attachToProfile(Long userId, String username, String key, Long profileId) {
+        checkKey(userId, key);
+        Profile profile = profileRepository.findById(profileId).orElseThrow(() -> reject(key, "Profile not found"));
+        if (!profile.getUser().getId().equals(userId)) {
+            throw reject(key, "You are not authorized to update this profile");
+        }
+        String url = promote(key, S3FileStorageUtils.PROFILE_PICS);
+        profileRepository.updateImgUrl(profileId, url);
+        postCache.invalidateAuthor(username);
+        return url;
+    }
+
+    // only keys issued to this user are accepted (and only those may be deleted on rejection)
+    private static void checkKey(Long userId, String key) {
+        if (key == null || !key.startsWith(STAGING_PREFIX + userId + "/") || key.contains("..")) {
+            throw new NotFoundException("Unknown upload");
+        }
+    }
+
+    private String promote(String key, String keyPrefix) {
+        long size = storage.size(key);
+        if (size < 0) {
+            throw new NotFoundException("Upload not found, PUT the file before finalizing");
+        }
+        if (size > maxBytes) {
+            throw reject(key, "Upload is larger than " + maxBytes + " bytes");
+        }
+        try {
+            return storage.url(storage.promote(key, keyPrefix));
+        } catch (IllegalStateException e) {
+            throw new NotFoundException("Upload changed while finalizing, please finalize again");
+        }
+    }
+
+    private NotFoundException reject(String key, String message) {
+        storage.delete(key);
+        return new NotFoundException(message);
+    }
+}
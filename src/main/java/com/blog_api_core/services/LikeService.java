@@ -1,19 +1,105 @@
 package com.blog_api_core.services;
 
-import com.blog_api_core.models.Like;
-import com.blog_api_core.payload.LikesPayload;
+import com.blog_api_core.exceptions.NotFoundException;
+import com.blog_api_core.payload.CursorPage;
+import com.blog_api_core.payload.LikeEntry;
+import com.blog_api_core.payload.PostCursor;
 import com.blog_api_core.repository.LikeRepository;
+import com.blog_api_core.repository.PostRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
 @Service
 public class LikeService {
     private final LikeRepository likeRepository;
-    public LikeService(LikeRepository likeRepository) {
+    private final PostRepository postRepository;
+    private final PostCache postCache;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final TrendingPosts trendingPosts;
+    private final LikedPostsIndex likedPostsIndex;
+    @Value("${spring.app.reactionsMaxPageSize:100}")
+    private int maxPageSize;
+    public LikeService(LikeRepository likeRepository, PostRepository postRepository, PostCache postCache, LikeWriteBuffer likeWriteBuffer, TrendingPosts trendingPosts, LikedPostsIndex likedPostsIndex) {
         this.likeRepository = likeRepository;
+        this.postRepository = postRepository;
+        this.postCache = postCache;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.trendingPosts = trendingPosts;
+        this.likedPostsIndex = likedPostsIndex;
     }
-    public List<LikesPayload> getAllLikesOfPost(Long postId) {
-        return likeRepository.findLikesByPost(postId);
+    // newest first; user display info is only joined in when asked for
+    public CursorPage<LikeEntry> getLikesOfPost(Long postId, String cursor, int pageSize, boolean withUsers) {
+        // checked up front: the rows of a deleted post outlive its tombstone
+        if (!postRepository.existsById(postId)) {
+            throw new NotFoundException("Post not found");
+        }
+        PostCursor position = PostCursor.decode(cursor);
+        pageSize = Math.min(Math.max(1, pageSize), maxPageSize);
+        // fetch one extra row to find out whether there is a next page
+        List<LikeEntry> rows = withUsers
+                ? likeRepository.findLikesWithUsersByPostBefore(postId, position.getAt(), position.getId(), pageSize + 1)
+                : likeRepository.findLikesByPostBefore(postId, position.getAt(), position.getId(), pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<LikeEntry> page = rows.subList(0, pageSize);
+        LikeEntry last = page.get(pageSize - 1);
+        return new CursorPage<>(page, new PostCursor(last.getLikedAt(), last.getId()).encode());
+    }
+
+    // served from post.like_count, so it never touches the likes table
+    public int countLikes(Long postId) {
+        Integer count = postRepository.findLikeCount(postId);
+        if (count == null) {
+            throw new NotFoundException("Post not found");
+        }
+        return count;
+    }
+
+    // returns true when the post is now liked, false when the like was removed
+    @Transactional
+    public boolean toggleLike(Long userId, Long postId) {
+        if (likeWriteBuffer.isEnabled()) {
+            if (!postRepository.existsById(postId)) {
+                throw new NotFoundException("Post not found");
+            }
+            boolean liked = likeWriteBuffer.toggle(userId, postId);
+            likedPostsIndex.update(userId, postId, liked);
+            if (liked) {
+                trendingPosts.liked(postId);
+            }
+            return liked;
+        }
+        postCache.invalidate(postId);
+        long delta = likeRepository.toggleLike(userId, postId);
+        if (delta == 0 && !postRepository.existsById(postId)) {
+            throw new NotFoundException("Post not found");
+        }
+        if (delta > 0) {
+            trendingPosts.liked(postId);
+        }
+        // after commit, so a bitmap loaded concurrently can't miss the change
+        boolean liked = delta >= 0;
+        afterCommit(() -> likedPostsIndex.update(userId, postId, liked));
+        // 0 with an existing post means a concurrent toggle inserted the same like first
+        return liked;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
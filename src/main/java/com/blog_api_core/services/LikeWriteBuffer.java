@@ -0,0 +1,210 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.repository.LikeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.BatchUpdateException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Optional write-behind mode for like toggles (spring.app.likeWriteBehind=true).
+// Toggles only flip the desired state of (user, post) in a concurrent map using compare-and-set,
+// so a burst of clicks collapses into one net change. A scheduled flush writes the net changes as
+// JDBC batches and then adjusts post.like_count once per post.
+@Component
+public class LikeWriteBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(LikeWriteBuffer.class);
+
+    private final ConcurrentHashMap<LikeKey, Boolean> pending = new ConcurrentHashMap<>();
+    // states taken by a running flush but not committed yet; toggles treat them as the persisted state
+    private final ConcurrentHashMap<LikeKey, Boolean> inFlight = new ConcurrentHashMap<>();
+    private final LikeRepository likeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PostCache postCache;
+
+    @Value("${spring.app.likeWriteBehind:false}")
+    private boolean enabled;
+
+    public LikeWriteBuffer(LikeRepository likeRepository, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, PostCache postCache) {
+        this.likeRepository = likeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.postCache = postCache;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // returns true when the post is now liked by the user
+    public boolean toggle(Long userId, Long postId) {
+        LikeKey key = new LikeKey(userId, postId);
+        while (true) {
+            Boolean liked = pending.get(key);
+            if (liked != null) {
+                if (pending.replace(key, liked, !liked)) {
+                    return !liked;
+                }
+            } else {
+                Boolean flushing = inFlight.get(key);
+                boolean persisted = flushing != null ? flushing : likeRepository.existsByUserIdAndPostId(userId, postId);
+                if (pending.putIfAbsent(key, !persisted) == null) {
+                    return !persisted;
+                }
+            }
+        }
+    }
+
+    // every buffered state of one user's likes, post id -> liked; LikedPostsIndex overlays these on the
+    // table so likedByUser reflects a toggle before it is flushed
+    public Map<Long, Boolean> pendingStates(Long userId) {
+        Map<Long, Boolean> states = new HashMap<>();
+        inFlight.forEach((key, liked) -> {
+            if (key.userId() == userId) {
+                states.put(key.postId(), liked);
+            }
+        });
+        pending.forEach((key, liked) -> {
+            if (key.userId() == userId) {
+                states.put(key.postId(), liked);
+            }
+        });
+        return states;
+    }
+
+    // synchronized so the shutdown drain never runs alongside a scheduled flush: both would take the same
+    // keys into inFlight and could re-queue or double-apply them
+    @Scheduled(fixedDelayString = "${spring.app.likeFlushIntervalMs:200}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<LikeKey> inserts = new ArrayList<>();
+        List<LikeKey> deletes = new ArrayList<>();
+        for (Map.Entry<LikeKey, Boolean> entry : pending.entrySet()) {
+            // only take entries nobody toggled since we read them; the rest go in the next flush
+            inFlight.put(entry.getKey(), entry.getValue());
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                (entry.getValue() ? inserts : deletes).add(entry.getKey());
+            } else {
+                inFlight.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(inserts, deletes));
+        } catch (RuntimeException e) {
+            if (rejectedStatement(e)) {
+                // one bad row must not fail the whole batch forever: write them one at a time instead
+                writeOneByOne(inserts, deletes);
+            } else {
+                logger.warn("Like flush failed, re-queueing {} toggles: {}", inserts.size() + deletes.size(), e.getMessage());
+                inserts.forEach(key -> pending.putIfAbsent(key, true));
+                deletes.forEach(key -> pending.putIfAbsent(key, false));
+            }
+        } finally {
+            inserts.forEach(key -> inFlight.remove(key, true));
+            deletes.forEach(key -> inFlight.remove(key, false));
+        }
+    }
+
+    // toggles the database refuses are logged and dropped, so the rest of the batch still gets written
+    private void writeOneByOne(List<LikeKey> inserts, List<LikeKey> deletes) {
+        for (LikeKey key : inserts) {
+            writeOne(key, List.of(key), List.of());
+        }
+        for (LikeKey key : deletes) {
+            writeOne(key, List.of(), List.of(key));
+        }
+    }
+
+    private void writeOne(LikeKey key, List<LikeKey> inserts, List<LikeKey> deletes) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(inserts, deletes));
+        } catch (RuntimeException e) {
+            logger.error("Dropping like toggle of user {} on post {}: {}", key.userId(), key.postId(), e.getMessage());
+        }
+    }
+
+    // a statement the database rejected, as opposed to the connection or transaction failing
+    private static boolean rejectedStatement(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BatchUpdateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write(List<LikeKey> inserts, List<LikeKey> deletes) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] inserted = batch(
+                "INSERT INTO likes (user_id, post_id, liked_at) SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM post WHERE id = ? AND deleted_at IS NULL) ON CONFLICT (user_id, post_id) DO NOTHING",
+                inserts, (statement, key) -> {
+                    statement.setLong(1, key.userId());
+                    statement.setLong(2, key.postId());
+                    statement.setTimestamp(3, now);
+                    statement.setLong(4, key.postId());
+                });
+        int[] deleted = batch(
+                "DELETE FROM likes WHERE user_id = ? AND post_id = ?",
+                deletes, (statement, key) -> {
+                    statement.setLong(1, key.userId());
+                    statement.setLong(2, key.postId());
+                });
+        collectDeltas(inserts, inserted, 1, deltas);
+        collectDeltas(deletes, deleted, -1, deltas);
+        List<Object[]> counterUpdates = new ArrayList<>();
+        deltas.forEach((postId, delta) -> {
+            if (delta != 0) {
+                counterUpdates.add(new Object[]{delta, postId});
+            }
+        });
+        if (!counterUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE post SET like_count = like_count + ? WHERE id = ?", counterUpdates);
+        }
+        deltas.keySet().forEach(postCache::invalidate);
+    }
+
+    private int[] batch(String sql, List<LikeKey> keys, ParameterizedPreparedStatementSetter<LikeKey> setter) {
+        if (keys.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(sql, keys, keys.size(), setter)[0];
+    }
+
+    // only rows the database actually changed move the counter (ON CONFLICT / missing rows report 0)
+    private static void collectDeltas(List<LikeKey> keys, int[] rowCounts, int sign, Map<Long, Integer> deltas) {
+        for (int i = 0; i < keys.size(); i++) {
+            int rows = rowCounts == null || i >= rowCounts.length ? 0 : rowCounts[i];
+            if (rows > 0) {
+                deltas.merge(keys.get(i).postId(), sign * rows, Integer::sum);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void drain() {
+        while (!pending.isEmpty()) {
+            int before = pending.size();
+            flush();
+            if (pending.size() >= before) {
+                logger.error("Could not drain {} buffered like toggles on shutdown", pending.size());
+                return;
+            }
+        }
+    }
+
+    private record LikeKey(long userId, long postId) {}
+}
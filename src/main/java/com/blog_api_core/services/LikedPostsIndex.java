@@ -0,0 +1,86 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.payload.MarkedPostSummary;
+import com.blog_api_core.payload.PostSummary;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+// The post ids each active user has liked, as a roaring bitmap per user. A bitmap is loaded on first use
+// with one read of the user's likes (served by the (user_id, post_id) unique index) and kept current by
+// LikeService, so feed queries don't look at likes at all: likedByUser is a bitmap probe per row.
+// Bitmaps are replaced rather than modified, so readers never lock. Likes made through other instances
+// only show up when a bitmap is reloaded, so entries are also dropped a fixed time after loading.
+@Component
+public class LikedPostsIndex {
+    private final Cache<Long, Roaring64Bitmap> bitmaps;
+    private final JdbcTemplate jdbcTemplate;
+    private final LikeWriteBuffer likeWriteBuffer;
+
+    public LikedPostsIndex(JdbcTemplate jdbcTemplate, LikeWriteBuffer likeWriteBuffer,
+                           @Value("${spring.app.likedPostsCacheSize:10000}") long maxSize,
+                           @Value("${spring.app.likedPostsCacheIdleMs:1800000}") long idleMs,
+                           @Value("${spring.app.likedPostsCacheTtlMs:3600000}") long ttlMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.bitmaps = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMillis(idleMs))
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    public boolean isLiked(Long userId, Long postId) {
+        return bitmaps.get(userId, this::load).contains(postId);
+    }
+
+    // fills in likedByUser for the given user; the bitmap is looked up once, not per row
+    public Function<PostSummary, PostSummary> marker(Long userId) {
+        Roaring64Bitmap liked = bitmaps.get(userId, this::load);
+        return summary -> new MarkedPostSummary(summary, liked.contains(summary.getPostId()));
+    }
+
+    // only users whose bitmap is loaded are touched; the others read the change from the database later
+    public void update(Long userId, Long postId, boolean liked) {
+        bitmaps.asMap().computeIfPresent(userId, (id, current) -> {
+            if (current.contains(postId) == liked) {
+                return current;
+            }
+            Roaring64Bitmap next = current.clone();
+            if (liked) {
+                next.addLong(postId);
+            } else {
+                next.removeLong(postId);
+            }
+            next.runOptimize();
+            return next;
+        });
+    }
+
+    private Roaring64Bitmap load(Long userId) {
+        // toggles still waiting in the write-behind buffer aren't in the table yet. They are read before the
+        // table: one flushed in between is then in both, whereas reading them after the query could miss a
+        // toggle flushed in between. Toggles made after this point reach the bitmap through update().
+        Map<Long, Boolean> buffered = likeWriteBuffer.pendingStates(userId);
+        Roaring64Bitmap liked = new Roaring64Bitmap();
+        jdbcTemplate.query("SELECT post_id FROM likes WHERE user_id = ?", row -> {
+            liked.addLong(row.getLong(1));
+        }, userId);
+        for (Map.Entry<Long, Boolean> pending : buffered.entrySet()) {
+            if (pending.getValue()) {
+                liked.addLong(pending.getKey());
+            } else {
+                liked.removeLong(pending.getKey());
+            }
+        }
+        liked.runOptimize();
+        return liked;
+    }
+}
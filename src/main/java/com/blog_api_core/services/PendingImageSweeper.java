@@ -0,0 +1,45 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.repository.PostRepository;
+import com.blog_api_core.repository.ProfileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// Clears pending image urls whose upload will never complete: uploads abandoned on shutdown or lost in
+// a crash leave the row pointing at "pending:..." with nobody left to replace it. Only urls older than
+// the max age are touched, so uploads still running on this or another instance are left alone.
+@Service
+public class PendingImageSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(PendingImageSweeper.class);
+
+    private final PostRepository postRepository;
+    private final ProfileRepository profileRepository;
+    private final PostCache postCache;
+    @Value("${spring.app.pendingImageMaxAgeMs:3600000}")
+    private long maxAgeMs;
+
+    public PendingImageSweeper(PostRepository postRepository, ProfileRepository profileRepository, PostCache postCache) {
+        this.postRepository = postRepository;
+        this.profileRepository = profileRepository;
+        this.postCache = postCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${spring.app.pendingImageSweepIntervalMs:3600000}", fixedDelayString = "${spring.app.pendingImageSweepIntervalMs:3600000}")
+    public int sweep() {
+        long submittedBefore = System.currentTimeMillis() - maxAgeMs;
+        int posts = postRepository.clearPendingImgUrlsBefore(submittedBefore);
+        int profiles = profileRepository.clearPendingImgUrlsBefore(submittedBefore);
+        if (posts + profiles > 0) {
+            // cached posts carry both the post image and the author's profile picture
+            postCache.clear();
+            logger.info("Cleared abandoned pending images on {} posts and {} profiles", posts, profiles);
+        }
+        return posts + profiles;
+    }
+}
@@ -0,0 +1,89 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.payload.SinglePost;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Read-through cache for GET /blog/post/{id}. Bounded by approximate bytes rather than entry count
+// (post content varies a lot in size); Caffeine's W-TinyLFU policy only admits a new post when it
+// is requested more often than the entry it would evict, so one-off reads don't flush hot posts.
+// Entries also carry the author's display name and picture: profile writes evict the author's posts,
+// and a TTL bounds how long anything missed by that can stay stale.
+@Component
+public class PostCache {
+    private final Cache<Long, SinglePost> cache;
+
+    public PostCache(@Value("${spring.app.postCacheMaxBytes:67108864}") long maxBytes,
+                     @Value("${spring.app.postCacheTtlMs:600000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .weigher((Long postId, SinglePost post) -> weigh(post))
+                .recordStats()
+                .build();
+    }
+
+    public SinglePost get(Long postId, Function<Long, SinglePost> loader) {
+        return cache.get(postId, loader);
+    }
+
+    // evicts now and, inside a transaction, again after commit so a concurrent read
+    // cannot re-cache the row as it was before the write
+    public void invalidate(Long postId) {
+        evictNowAndAfterCommit(() -> cache.invalidate(postId));
+    }
+
+    // every cached post by this author; profile changes are rare enough for a scan of the cache
+    public void invalidateAuthor(String username) {
+        evictNowAndAfterCommit(() -> cache.asMap().values().removeIf(post -> username.equals(post.getUsername())));
+    }
+
+    private static void evictNowAndAfterCommit(Runnable evict) {
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("evictedBytes", stats.evictionWeight());
+        return result;
+    }
+
+    private static int weigh(SinglePost post) {
+        // rough heap footprint: two bytes per char plus a fixed overhead for the projection
+        long chars = length(post.getTitle()) + length(post.getContent()) + length(post.getImgUrl())
+                + length(post.getUsername()) + length(post.getUserImgUrl()) + length(post.getDisplayName());
+        return (int) Math.min(Integer.MAX_VALUE, 256 + chars * 2);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
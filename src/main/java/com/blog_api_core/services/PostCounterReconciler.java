@@ -0,0 +1,54 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Repairs drift between post.like_count / comment_count / bookmark_count and the likes / comment / user_bookmarks tables.
+// Runs once on startup, which backfills the counters, and then periodically. Walks the post table in id order,
+// one short transaction per batch that locks the batch's rows before recounting, so a like or comment
+// committed while the batch is counted can't be overwritten by a stale count.
+@Service
+public class PostCounterReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(PostCounterReconciler.class);
+
+    private final PostRepository postRepository;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${spring.app.counterReconcileBatchSize:500}")
+    private int batchSize;
+
+    public PostCounterReconciler(PostRepository postRepository, TransactionTemplate transactionTemplate) {
+        this.postRepository = postRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${spring.app.counterReconcileIntervalMs:3600000}", fixedDelayString = "${spring.app.counterReconcileIntervalMs:3600000}")
+    public int reconcile() {
+        int repaired = 0;
+        Long afterId = 0L;
+        List<Long> ids = postRepository.findPostIdsAfter(afterId, batchSize);
+        while (!ids.isEmpty()) {
+            Long fromId = ids.get(0);
+            Long lastId = ids.get(ids.size() - 1);
+            repaired += transactionTemplate.execute(status -> {
+                postRepository.lockPostsForCounterRepair(fromId, lastId);
+                return postRepository.reconcileCounters(fromId, lastId);
+            });
+            afterId = lastId;
+            ids = postRepository.findPostIdsAfter(afterId, batchSize);
+        }
+        if (repaired > 0) {
+            logger.info("Repaired like/comment/bookmark counters on {} posts", repaired);
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,66 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Physically removes tombstoned posts. Children are deleted in bounded chunks, each statement in its
+// own short transaction (Postgres has no DELETE ... LIMIT, so chunks are picked by ctid), and the post
+// row goes last. A post that fails part way is simply picked up again on the next run.
+@Service
+public class PostPurger {
+    private static final Logger logger = LoggerFactory.getLogger(PostPurger.class);
+    private static final String[] CHILD_CHUNKS = {
+            "DELETE FROM likes WHERE ctid IN (SELECT ctid FROM likes WHERE post_id = ? LIMIT ?)",
+            "DELETE FROM user_bookmarks WHERE ctid IN (SELECT ctid FROM user_bookmarks WHERE post_id = ? LIMIT ?)",
+            "DELETE FROM comment WHERE ctid IN (SELECT ctid FROM comment WHERE post_id = ? LIMIT ?)",
+            "DELETE FROM post_topics WHERE ctid IN (SELECT ctid FROM post_topics WHERE post_id = ? LIMIT ?)",
+            "UPDATE topic SET post_id = NULL WHERE ctid IN (SELECT ctid FROM topic WHERE post_id = ? LIMIT ?)"
+    };
+
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    @Value("${spring.app.postPurgeChunkSize:1000}")
+    private int chunkSize;
+    @Value("${spring.app.postPurgeBatchSize:100}")
+    private int batchSize;
+
+    public PostPurger(PostRepository postRepository, JdbcTemplate jdbcTemplate) {
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Scheduled(initialDelayString = "${spring.app.postPurgeInitialDelayMs:30000}", fixedDelayString = "${spring.app.postPurgeIntervalMs:60000}")
+    public int purge() {
+        int purged = 0;
+        for (Long postId : postRepository.findTombstonedPostIds(batchSize)) {
+            try {
+                purgePost(postId);
+                purged++;
+            } catch (DataAccessException e) {
+                logger.warn("Could not purge post {}, will retry: {}", postId, e.getMessage());
+            }
+        }
+        if (purged > 0) {
+            logger.info("Purged {} deleted posts", purged);
+        }
+        return purged;
+    }
+
+    private void purgePost(Long postId) {
+        for (String chunk : CHILD_CHUNKS) {
+            int rows;
+            do {
+                rows = jdbcTemplate.update(chunk, postId, chunkSize);
+            } while (rows > 0);
+        }
+        jdbcTemplate.update("DELETE FROM post WHERE id = ? AND deleted_at IS NOT NULL", postId);
+    }
+}
@@ -0,0 +1,351 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.payload.PostText;
+import com.blog_api_core.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over post titles and content, kept in sync by PostService.
+// Each post keeps its own term -> weight map (the forward index) so it can be removed or
+// re-indexed without scanning the postings, and so the index can be snapshotted and rebuilt
+// from a memory-mapped file instead of re-reading every post from the database. Each snapshot records
+// when it was taken; on load, posts created after it or changed since (post.updated_at) are re-indexed,
+// so edits made after the last snapshot - by a crashed process or another instance - are not lost.
+@Service
+public class PostSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+    private static final int SNAPSHOT_MAGIC = 0x50534958; // "PSIX"
+    private static final int SNAPSHOT_VERSION = 2;
+    // re-index a little before the snapshot time, for clock skew and writes that committed late
+    private static final long CHANGE_MARGIN_MINUTES = 5;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "was", "with");
+
+    private final PostRepository postRepository;
+    // term -> (postId -> weight); sorted so the last query token can be prefix-expanded
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long maxPostId;
+    // when the loaded snapshot was taken, or null if there wasn't one
+    private LocalDateTime snapshotTakenAt;
+    // posts indexed or removed while a snapshot is being loaded; the snapshot's older copy of them is skipped
+    private Set<Long> changedWhileLoading;
+
+    @Value("${spring.app.searchIndexSnapshot:data/post-search.idx}")
+    private String snapshotPath;
+
+    public PostSearchIndex(PostRepository postRepository) {
+        this.postRepository = postRepository;
+    }
+
+    public void index(Long postId, String title, String content) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String token : tokenize(title)) {
+            terms.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(content)) {
+            terms.merge(token, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(postId);
+            if (changedWhileLoading != null) {
+                changedWhileLoading.add(postId);
+            }
+            documents.put(postId, terms);
+            terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(postId, weight));
+            maxPostId = Math.max(maxPostId, postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long postId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(postId);
+            if (changedWhileLoading != null) {
+                changedWhileLoading.add(postId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long postId) {
+        Map<String, Integer> terms = documents.remove(postId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> posts = postings.get(term);
+            if (posts != null) {
+                posts.remove(postId);
+                if (posts.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    // Returns post ids ranked by tf-idf; the last query token also matches as a prefix (search-as-you-type)
+    public List<Long> search(String query, int page, int size) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || size <= 0 || page < 0) {
+            return List.of();
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                Map<String, Map<Long, Integer>> matches = i == tokens.size() - 1
+                        ? postings.subMap(token, true, token + Character.MAX_VALUE, false)
+                        : postings.containsKey(token) ? Map.of(token, postings.get(token)) : Map.of();
+                for (Map.Entry<String, Map<Long, Integer>> match : matches.entrySet()) {
+                    Map<Long, Integer> posts = match.getValue();
+                    double idf = Math.log(1.0 + (double) documentCount / posts.size());
+                    // exact matches rank above prefix completions
+                    double boost = match.getKey().equals(token) ? 1.0 : 0.5;
+                    posts.forEach((postId, weight) -> scores.merge(postId, weight * idf * boost, Double::sum));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .skip((long) page * size)
+                .limit(size)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (token.length() <= MAX_TOKEN_LENGTH && !STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long fromId = 0;
+        try {
+            long snapshotMaxPostId = loadSnapshot();
+            if (snapshotMaxPostId >= 0) {
+                // not maxPostId: a post saved during warm-up may already have raised it past unindexed ones
+                fromId = snapshotMaxPostId;
+                logger.info("Loaded post search index snapshot with {} posts", size());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load post search index snapshot, rebuilding: {}", e.getMessage());
+            clear();
+            fromId = 0;
+        }
+        // index anything created after the snapshot was taken
+        List<PostText> batch = postRepository.findPostTextAfter(fromId, REBUILD_BATCH_SIZE);
+        while (!batch.isEmpty()) {
+            for (PostText post : batch) {
+                index(post.getId(), post.getTitle(), post.getContent());
+            }
+            batch = postRepository.findPostTextAfter(batch.get(batch.size() - 1).getId(), REBUILD_BATCH_SIZE);
+        }
+        if (snapshotTakenAt != null) {
+            reindexChangedSince(snapshotTakenAt.minusMinutes(CHANGE_MARGIN_MINUTES));
+        }
+    }
+
+    // edits and deletes of posts that were already in the snapshot
+    private void reindexChangedSince(LocalDateTime since) {
+        int changed = 0;
+        List<PostText> batch = postRepository.findPostTextChangedSince(since, 0L, REBUILD_BATCH_SIZE);
+        while (!batch.isEmpty()) {
+            for (PostText post : batch) {
+                if (post.isDeleted()) {
+                    remove(post.getId());
+                } else {
+                    index(post.getId(), post.getTitle(), post.getContent());
+                }
+            }
+            changed += batch.size();
+            batch = postRepository.findPostTextChangedSince(since, batch.get(batch.size() - 1).getId(), REBUILD_BATCH_SIZE);
+        }
+        logger.info("Re-indexed {} posts changed since the search index snapshot", changed);
+    }
+
+    @PreDestroy
+    @Scheduled(initialDelayString = "${spring.app.searchIndexSnapshotIntervalMs:600000}", fixedDelayString = "${spring.app.searchIndexSnapshotIntervalMs:600000}")
+    public void snapshot() {
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            logger.warn("Could not write post search index snapshot: {}", e.getMessage());
+        }
+    }
+
+    // Layout: magic, version, takenAt (epoch ms), maxPostId, docCount, then per post: id, termCount, (termLength, termBytes, weight)*
+    private void writeSnapshot() throws IOException {
+        Path target = Paths.get(snapshotPath);
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        // taken before reading the index, so anything written while the snapshot runs counts as changed after it
+        long takenAt = Timestamp.valueOf(LocalDateTime.now()).getTime();
+        lock.readLock().lock();
+        try {
+            long bytes = 28;
+            for (Map<String, Integer> terms : documents.values()) {
+                bytes += 12;
+                for (String term : terms.keySet()) {
+                    bytes += 6 + term.getBytes(StandardCharsets.UTF_8).length;
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(takenAt).putLong(maxPostId).putInt(documents.size());
+                for (Map.Entry<Long, Map<String, Integer>> document : documents.entrySet()) {
+                    buffer.putLong(document.getKey()).putInt(document.getValue().size());
+                    for (Map.Entry<String, Integer> term : document.getValue().entrySet()) {
+                        byte[] termBytes = term.getKey().getBytes(StandardCharsets.UTF_8);
+                        buffer.putShort((short) termBytes.length).put(termBytes).putInt(term.getValue());
+                    }
+                }
+                buffer.force();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // The file is read into separate maps without holding the lock, then merged in. Posts saved or deleted
+    // meanwhile (PostService keeps indexing during warm-up) keep their live state instead of the snapshot's.
+    // returns the highest post id the snapshot covers, or -1 when there is no snapshot
+    private long loadSnapshot() throws IOException {
+        Path source = Paths.get(snapshotPath);
+        if (!Files.exists(source)) {
+            return -1;
+        }
+        lock.writeLock().lock();
+        try {
+            changedWhileLoading = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long snapshotMaxPostId;
+        try {
+            Map<Long, Map<String, Integer>> loaded;
+            LocalDateTime takenAt;
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                    throw new IOException("unrecognised snapshot format");
+                }
+                takenAt = new Timestamp(buffer.getLong()).toLocalDateTime();
+                snapshotMaxPostId = buffer.getLong();
+                int documentCount = buffer.getInt();
+                loaded = new HashMap<>(documentCount * 2);
+                for (int i = 0; i < documentCount; i++) {
+                    long postId = buffer.getLong();
+                    int termCount = buffer.getInt();
+                    Map<String, Integer> terms = new HashMap<>(termCount * 2);
+                    for (int j = 0; j < termCount; j++) {
+                        byte[] termBytes = new byte[buffer.getShort()];
+                        buffer.get(termBytes);
+                        terms.put(new String(termBytes, StandardCharsets.UTF_8), buffer.getInt());
+                    }
+                    loaded.put(postId, terms);
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<Long, Map<String, Integer>> document : loaded.entrySet()) {
+                    Long postId = document.getKey();
+                    if (changedWhileLoading.contains(postId)) {
+                        continue;
+                    }
+                    documents.put(postId, document.getValue());
+                    document.getValue().forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(postId, weight));
+                }
+                maxPostId = Math.max(maxPostId, snapshotMaxPostId);
+                snapshotTakenAt = takenAt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                changedWhileLoading = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return snapshotMaxPostId;
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            maxPostId = 0;
+            snapshotTakenAt = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
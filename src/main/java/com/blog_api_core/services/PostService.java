@@ -1,40 +1,109 @@
 package com.blog_api_core.services;
 
 import com.blog_api_core.models.Post;
+import com.blog_api_core.models.Topic;
 import com.blog_api_core.models.User;
+import com.blog_api_core.payload.CursorPage;
+import com.blog_api_core.payload.PendingUpload;
+import com.blog_api_core.payload.PostCursor;
 import com.blog_api_core.payload.PostSummary;
 import com.blog_api_core.payload.SinglePost;
 import com.blog_api_core.repository.PostRepository;
+import com.blog_api_core.utils.JsonStreamWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Service
 public class PostService {
+    private static final Logger logger = LoggerFactory.getLogger(PostService.class);
     private final PostRepository postRepository;
-    public PostService(PostRepository postRepository) {
+    private final PostSearchIndex postSearchIndex;
+    private final PostCache postCache;
+    private final JsonStreamWriter jsonStreamWriter;
+    private final TrendingPosts trendingPosts;
+    private final TopicFeedIndex topicFeedIndex;
+    private final LikedPostsIndex likedPostsIndex;
+    @Value("${spring.app.feedMaxPageSize:100}")
+    private int maxPageSize;
+    public PostService(PostRepository postRepository, PostSearchIndex postSearchIndex, PostCache postCache, JsonStreamWriter jsonStreamWriter, TrendingPosts trendingPosts, TopicFeedIndex topicFeedIndex, LikedPostsIndex likedPostsIndex) {
         this.postRepository = postRepository;
+        this.postSearchIndex = postSearchIndex;
+        this.postCache = postCache;
+        this.jsonStreamWriter = jsonStreamWriter;
+        this.trendingPosts = trendingPosts;
+        this.topicFeedIndex = topicFeedIndex;
+        this.likedPostsIndex = likedPostsIndex;
     }
 
     public Post savePost(User user, Post post){
+        boolean created = post.getId() == null;
         post.setUser(user);
-        return postRepository.save(post);
+        Post savedPost = postRepository.save(post);
+        postSearchIndex.index(savedPost.getId(), savedPost.getTitle(), savedPost.getContent());
+        postCache.invalidate(savedPost.getId());
+        if (created) {
+            trendingPosts.postCreated(savedPost.getId(), savedPost.getCreatedAt());
+            if (savedPost.getTopics() != null) {
+                topicFeedIndex.add(savedPost.getId(), savedPost.getTopics().stream().map(Topic::getId).toList());
+            }
+        }
+        return savedPost;
+    }
+    // saves a post whose imgUrl is the upload's pending url, then starts the upload; a failed save discards it
+    public Post savePost(User user, Post post, PendingUpload upload, String previousImgUrl){
+        Post savedPost;
+        try {
+            savedPost = savePost(user, post);
+        } catch (RuntimeException e) {
+            upload.discard();
+            throw e;
+        }
+        attachImage(savedPost.getId(), upload, previousImgUrl);
+        return savedPost;
+    }
+
+    // swaps the pending image url for the uploaded one once it is stored, or puts the previous image back
+    // if the upload failed
+    private void attachImage(Long postId, PendingUpload upload, String previousImgUrl){
+        upload.getCompletion().whenComplete((imgUrl, error) -> {
+            try {
+                postRepository.replacePendingImgUrl(postId, upload.getPendingUrl(), error == null ? imgUrl : upload.fallbackUrl(previousImgUrl));
+                postCache.invalidate(postId);
+            } catch (RuntimeException e) {
+                logger.warn("Could not attach uploaded image to post {}: {}", postId, e.getMessage());
+            }
+        });
+        upload.start();
     }
     public Post getPostById(Long id){
         return postRepository.findById(id).orElse(null);
     }
     public SinglePost getSinglePostById(Long postId){
-        return postRepository.findSinglePostById(postId);
+        return postCache.get(postId, postRepository::findSinglePostById);
+    }
+    public Map<String, Object> getPostCacheStats() {
+        return postCache.stats();
     }
     public List<Post> getAllPosts(){
         return postRepository.findAll();
     }
 
     public List<PostSummary> getAllPostSummaries(Long userId) {
-        return postRepository.findPostSummaries(userId);
+        return postRepository.findPostSummaries().stream().map(likedPostsIndex.marker(userId)).toList();
     }
 
     public Page<PostSummary> getPaginatedPostSummaries(int offSet, int pageSize) {
@@ -42,10 +111,37 @@ public class PostService {
         return postRepository.findPostSummariesWithPagination(pageable);
     }
 
+    public CursorPage<PostSummary> getPostSummariesAfterCursor(String cursor, int pageSize) {
+        PostCursor position = PostCursor.decode(cursor);
+        pageSize = Math.min(Math.max(1, pageSize), maxPageSize);
+        // fetch one extra row to find out whether there is a next page
+        List<PostSummary> rows = postRepository.findPostSummariesBeforeCursor(position.getAt(), position.getId(), pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<PostSummary> page = rows.subList(0, pageSize);
+        return new CursorPage<>(page, PostCursor.of(page.get(pageSize - 1)).encode());
+    }
+
     public List<PostSummary> getPostSummariesByTopicId(Long topicId) {
         return postRepository.findPostSummariesByTopicId(topicId);
     }
 
+    // newest first; ids come from the in-memory topic index, only the page is read from the database.
+    // One id more than the page is fetched, so hasNext holds even when hydration drops a deleted post.
+    public Slice<PostSummary> getTopicFeed(Long topicId, Long userId, int page, int pageSize) {
+        pageSize = Math.min(Math.max(1, pageSize), maxPageSize);
+        page = Math.max(0, page);
+        int offset = page * pageSize;
+        List<Long> ids = topicFeedIndex.page(topicId, offset, pageSize + 1);
+        if (ids == null) {
+            ids = postRepository.findPostIdsByTopicId(topicId, offset, pageSize + 1);
+        }
+        boolean hasNext = ids.size() > pageSize;
+        List<PostSummary> posts = hydrateInOrder(userId, hasNext ? ids.subList(0, pageSize) : ids);
+        return new SliceImpl<>(posts, PageRequest.of(page, pageSize), hasNext);
+    }
+
     public List<PostSummary> getPostSummariesByUserId(Long userId) {
         return postRepository.findPostsByUserId(userId);
     }
@@ -58,7 +154,58 @@ public class PostService {
         return postRepository.findPostSummariesByBookMarksId(userId);
     }
 
+    public List<PostSummary> searchPosts(String searchTerm, Long userId, int page, int size) {
+        return hydrateInOrder(userId, postSearchIndex.search(searchTerm, page, size));
+    }
+
+    // ranked from the in-memory trending scores; only the page itself is read from the database
+    public List<PostSummary> getTrendingPosts(Long userId, int limit) {
+        return hydrateInOrder(userId, trendingPosts.top(limit));
+    }
+
+    private List<PostSummary> hydrateInOrder(Long userId, List<Long> rankedIds) {
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+        // hydrate the page in one query, then restore the ranking order
+        Function<PostSummary, PostSummary> marker = likedPostsIndex.marker(userId);
+        Map<Long, PostSummary> summaries = new HashMap<>();
+        for (PostSummary summary : postRepository.findPostSummariesByIds(rankedIds)) {
+            summaries.put(summary.getPostId(), marker.apply(summary));
+        }
+        List<PostSummary> results = new ArrayList<>(rankedIds.size());
+        for (Long postId : rankedIds) {
+            PostSummary summary = summaries.get(postId);
+            if (summary != null) {
+                results.add(summary);
+            }
+        }
+        return results;
+    }
+
+    public StreamingResponseBody streamAllPosts() {
+        return jsonStreamWriter.stream(true, postRepository::streamAll);
+    }
+
+    public StreamingResponseBody streamAllPostSummaries(Long userId) {
+        Function<PostSummary, PostSummary> marker = likedPostsIndex.marker(userId);
+        return jsonStreamWriter.stream(true, () -> postRepository.streamPostSummaries().map(marker));
+    }
+
+    public StreamingResponseBody streamPostSummariesByTopicId(Long topicId) {
+        return jsonStreamWriter.stream(true, () -> postRepository.streamPostSummariesByTopicId(topicId));
+    }
+
+    public StreamingResponseBody streamPostByBookMarksId(Long userId) {
+        return jsonStreamWriter.stream(true, () -> postRepository.streamPostSummariesByBookMarksId(userId));
+    }
+
+    // tombstones the post; PostPurger deletes its likes, comments and bookmarks in small batches later
     public void deletePost(Post post){
-        postRepository.delete(post);
+        postRepository.tombstone(post.getId());
+        postSearchIndex.remove(post.getId());
+        postCache.invalidate(post.getId());
+        trendingPosts.remove(post.getId());
+        topicFeedIndex.remove(post.getId());
     }
 }
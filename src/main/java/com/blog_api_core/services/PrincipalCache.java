@@ -0,0 +1,34 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.jwt.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+// username -> (id, authorities) for authenticated requests, so a warm user costs no database round trip.
+// Entries live for a bounded TTL; invalidate(username) must be called whenever the user is
+// deleted or their roles change.
+@Component
+public class PrincipalCache {
+    private final Cache<String, UserPrincipal> cache;
+
+    public PrincipalCache(@Value("${spring.app.principalCacheSize:10000}") long maxSize,
+                          @Value("${spring.app.principalCacheTtlMs:300000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        return cache.get(username, loader);
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+}
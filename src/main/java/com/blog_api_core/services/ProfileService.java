@@ -2,35 +2,103 @@ package com.blog_api_core.services;
 
 import com.blog_api_core.models.Profile;
 import com.blog_api_core.models.User;
+import com.blog_api_core.payload.PendingUpload;
 import com.blog_api_core.payload.ProfileSummary;
 import com.blog_api_core.payload.UserSpecification;
 import com.blog_api_core.repository.ProfileRepository;
 import com.blog_api_core.repository.UserRepository;
 import com.blog_api_core.utils.S3FileStorageUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ProfileService {
+    private static final Logger logger = LoggerFactory.getLogger(ProfileService.class);
     private final UserRepository userRepository;
     private final ProfileRepository profileRepository;
     private final S3FileStorageUtils s3FileStorageUtils;
+    private final UserSearchIndex userSearchIndex;
+    private final PostCache postCache;
+    @Value("${spring.app.userSearchLimit:20}")
+    private int userSearchLimit;
 
-    public ProfileService(UserRepository userRepository, ProfileRepository profileRepository, S3FileStorageUtils s3FileStorageUtils) {
+    public ProfileService(UserRepository userRepository, ProfileRepository profileRepository, S3FileStorageUtils s3FileStorageUtils, UserSearchIndex userSearchIndex, PostCache postCache) {
         this.userRepository = userRepository;
         this.profileRepository = profileRepository;
         this.s3FileStorageUtils = s3FileStorageUtils;
+        this.userSearchIndex = userSearchIndex;
+        this.postCache = postCache;
     }
 
-    public Profile saveProfile(Profile profile) {
-        return profileRepository.save(profile);
+    // the owner's username comes from the caller: the profile's user is usually a lazy reference,
+    // and reading its username would load the whole user row just to re-index it
+    public Profile saveProfile(Profile profile, String username) {
+        Profile savedProfile = profileRepository.save(profile);
+        User user = savedProfile.getUser();
+        if (user != null) {
+            userSearchIndex.index(user.getId(), username, savedProfile.getDisplayName());
+        }
+        // cached posts show the author's display name and picture
+        postCache.invalidateAuthor(username);
+        return savedProfile;
+    }
+
+    // saves a profile whose imgUrl is the upload's pending url, then starts the upload; a failed save discards it
+    public Profile saveProfile(Profile profile, String username, PendingUpload upload, String previousImgUrl) {
+        Profile savedProfile;
+        try {
+            savedProfile = saveProfile(profile, username);
+        } catch (RuntimeException e) {
+            upload.discard();
+            throw e;
+        }
+        attachImage(savedProfile.getId(), username, upload, previousImgUrl);
+        return savedProfile;
+    }
+
+    // swaps the pending url for the uploaded one, or puts the previous picture back if the upload failed
+    private void attachImage(Long profileId, String username, PendingUpload upload, String previousImgUrl) {
+        upload.getCompletion().whenComplete((imgUrl, error) -> {
+            try {
+                profileRepository.replacePendingImgUrl(profileId, upload.getPendingUrl(), error == null ? imgUrl : upload.fallbackUrl(previousImgUrl));
+                postCache.invalidateAuthor(username);
+            } catch (RuntimeException e) {
+                logger.warn("Could not attach uploaded image to profile {}: {}", profileId, e.getMessage());
+            }
+        });
+        upload.start();
     }
 
     public List<ProfileSummary> searchUser(String searchTerm){
-        return profileRepository.getAllMatchedResults(searchTerm);
+        return searchUser(searchTerm, userSearchLimit);
+    }
+
+    public List<ProfileSummary> searchUser(String searchTerm, int limit){
+        List<Long> rankedIds = userSearchIndex.search(searchTerm, Math.min(limit, userSearchLimit));
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProfileSummary> profiles = new HashMap<>();
+        for (ProfileSummary profile : profileRepository.findUserProfilesByIds(rankedIds)) {
+            profiles.put(profile.getUserId(), profile);
+        }
+        List<ProfileSummary> results = new ArrayList<>(rankedIds.size());
+        for (Long userId : rankedIds) {
+            ProfileSummary profile = profiles.get(userId);
+            if (profile != null) {
+                results.add(profile);
+            }
+        }
+        return results;
     }
 
     public ProfileSummary getUserProfile(Long userId) {
@@ -0,0 +1,91 @@
+package com.blog_api_core.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Topic name -> id, held in memory. Topics are a small set that only grows, so known names are
+// resolved without touching the database and unknown ones are created by a single batched upsert
+// that relies on the unique index on topic.name (concurrent posts can't create duplicates).
+@Component
+public class TopicDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(TopicDictionary.class);
+    private static final String UPSERT =
+            "WITH input(name) AS (SELECT DISTINCT unnest(?::text[])), " +
+            "inserted AS (INSERT INTO topic (name) SELECT name FROM input ON CONFLICT (name) DO NOTHING RETURNING id, name) " +
+            "SELECT id, name FROM inserted UNION ALL SELECT t.id, t.name FROM topic t JOIN input i ON t.name = i.name";
+
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public TopicDictionary(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // ids for the given names in the same order, creating the topics that don't exist yet
+    public List<Long> resolve(Collection<String> names) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String name : names) {
+            if (!ids.containsKey(name)) {
+                missing.add(name);
+            }
+        }
+        // a second pass picks up names another transaction inserted while our upsert was running
+        for (int attempt = 0; attempt < 2 && !missing.isEmpty(); attempt++) {
+            upsert(missing);
+            missing.removeIf(ids::containsKey);
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Could not resolve topics " + missing);
+        }
+        List<Long> result = new ArrayList<>(names.size());
+        for (String name : names) {
+            result.add(ids.get(name));
+        }
+        return result;
+    }
+
+    private void upsert(Set<String> names) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT);
+            statement.setArray(1, connection.createArrayOf("text", names.toArray()));
+            return statement;
+        }, row -> {
+            ids.put(row.getString("name"), row.getLong("id"));
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureUniqueNames();
+        jdbcTemplate.query("SELECT id, name FROM topic", row -> {
+            ids.put(row.getString("name"), row.getLong("id"));
+        });
+    }
+
+    // older databases may already hold duplicate names, which would stop the unique index from being
+    // built: point post_topics at the lowest id of each name and drop the rest before creating it
+    private void ensureUniqueNames() {
+        Boolean duplicates = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM topic GROUP BY name HAVING COUNT(*) > 1)", Boolean.class);
+        if (Boolean.TRUE.equals(duplicates)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                String ranked = "WITH ranked AS (SELECT id, MIN(id) OVER (PARTITION BY name) AS keep_id FROM topic) ";
+                jdbcTemplate.update(ranked + "UPDATE post_topics pt SET topic_id = r.keep_id FROM ranked r WHERE pt.topic_id = r.id AND r.id <> r.keep_id");
+                int removed = jdbcTemplate.update(ranked + "DELETE FROM topic t USING ranked r WHERE t.id = r.id AND r.id <> r.keep_id");
+                logger.info("Merged {} duplicate topics", removed);
+            });
+        }
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_topic_name ON topic (name)");
+    }
+}
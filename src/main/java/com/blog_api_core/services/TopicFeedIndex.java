@@ -0,0 +1,110 @@
+package com.blog_api_core.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The most recent post ids of every topic, newest last, each topic in a fixed-size ring of longs.
+// Maintained on add/delete post and loaded once on startup, so a topic page is a slice of the ring
+// followed by one IN query for the summaries. Only pages past the end of a full ring need the database.
+@Component
+public class TopicFeedIndex {
+    private static final String LOAD =
+            "SELECT topic_id, post_id FROM (" +
+            "SELECT pt.topic_id, pt.post_id, p.created_at, ROW_NUMBER() OVER (PARTITION BY pt.topic_id ORDER BY p.created_at DESC, p.id DESC) AS position " +
+            "FROM post_topics pt JOIN post p ON p.id = pt.post_id WHERE p.deleted_at IS NULL) recent " +
+            "WHERE position <= ? ORDER BY created_at, post_id";
+
+    private final Map<Long, RecentIds> feeds = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+
+    public TopicFeedIndex(JdbcTemplate jdbcTemplate, @Value("${spring.app.topicFeedCapacity:1000}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void add(Long postId, Collection<Long> topicIds) {
+        for (Long topicId : topicIds) {
+            feeds.computeIfAbsent(topicId, id -> new RecentIds(capacity)).add(postId);
+        }
+    }
+
+    public void remove(Long postId) {
+        for (RecentIds feed : feeds.values()) {
+            feed.remove(postId);
+        }
+    }
+
+    // newest first; null when the page lies beyond what the ring holds and has to come from the database
+    public List<Long> page(Long topicId, int offset, int limit) {
+        RecentIds feed = feeds.get(topicId);
+        if (feed == null) {
+            return List.of();
+        }
+        return feed.page(offset, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        // rows arrive oldest first, so appending leaves every ring ordered by recency; one row more than
+        // fits is loaded so that topics with older posts push it out and end up marked truncated
+        jdbcTemplate.query(LOAD, row -> {
+            feeds.computeIfAbsent(row.getLong("topic_id"), id -> new RecentIds(capacity)).add(row.getLong("post_id"));
+        }, capacity + 1);
+    }
+
+    private static final class RecentIds {
+        private final long[] ids;
+        private int start;
+        private int size;
+        // set once the ring has dropped an id, i.e. older posts exist that it no longer holds
+        private boolean truncated;
+
+        RecentIds(int capacity) {
+            this.ids = new long[capacity];
+        }
+
+        synchronized void add(long postId) {
+            if (size == ids.length) {
+                start = (start + 1) % ids.length;
+                size--;
+                truncated = true;
+            }
+            ids[(start + size) % ids.length] = postId;
+            size++;
+        }
+
+        synchronized void remove(long postId) {
+            for (int i = 0; i < size; i++) {
+                if (ids[(start + i) % ids.length] == postId) {
+                    for (int j = i; j < size - 1; j++) {
+                        ids[(start + j) % ids.length] = ids[(start + j + 1) % ids.length];
+                    }
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        synchronized List<Long> page(int offset, int limit) {
+            if (offset + limit > size && truncated) {
+                return null;
+            }
+            int end = Math.min(size, offset + limit);
+            List<Long> page = new ArrayList<>(Math.max(0, end - offset));
+            for (int i = offset; i < end; i++) {
+                page.add(ids[(start + size - 1 - i) % ids.length]);
+            }
+            return page;
+        }
+    }
+}
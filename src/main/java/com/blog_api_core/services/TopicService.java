@@ -6,14 +6,17 @@ import com.blog_api_core.models.Topic;
 import com.blog_api_core.repository.TopicRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class TopicService {
     private final TopicRepository topicRepository;
-    public TopicService(TopicRepository topicRepository) {
+    private final TopicDictionary topicDictionary;
+    public TopicService(TopicRepository topicRepository, TopicDictionary topicDictionary) {
         this.topicRepository = topicRepository;
+        this.topicDictionary = topicDictionary;
     }
 
     public Topic saveTopic(Topic topic) {
@@ -23,6 +26,32 @@ public class TopicService {
         return topicRepository.findByName(name);
     }
 
+    // Maps the topics sent with a post onto existing rows, creating missing ones in one upsert. Nothing is
+    // loaded back: the post only writes join rows, so references carrying the resolved id and the name
+    // (which the response shows) are enough. Proxies from getReferenceById would each be loaded by a
+    // query as soon as the response serializes their names.
+    public List<Topic> resolveTopics(List<Topic> topics) {
+        List<String> names = new ArrayList<>();
+        for (Topic topic : topics) {
+            String name = topic.getName() == null ? "" : topic.getName().trim();
+            if (!name.isEmpty() && !names.contains(name)) {
+                names.add(name);
+            }
+        }
+        if (names.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = topicDictionary.resolve(names);
+        List<Topic> resolved = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Topic reference = new Topic();
+            reference.setId(ids.get(i));
+            reference.setName(names.get(i));
+            resolved.add(reference);
+        }
+        return resolved;
+    }
+
     public List<Topic> getAllTopics() {
         return topicRepository.findAll();
     }
@@ -0,0 +1,183 @@
+package com.blog_api_core.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Trending feed. A post's score is the sum of its activity (creation, likes, comments), each weighted
+// and decayed exponentially with its age. Scores are stored relative to a fixed epoch, as
+// weight * e^(λ·(t - epoch)), so they never have to be decayed in place: ranking by the stored value
+// is ranking by the decayed score at any moment. Events bump scores incrementally and keep a top-K
+// array current; a periodic recompute from the database rebases the epoch and repairs whatever the
+// increments can't see (unlikes, other instances). Serving the feed copies at most K ids.
+@Component
+public class TrendingPosts {
+    private static final Logger logger = LoggerFactory.getLogger(TrendingPosts.class);
+    private static final String RECOMPUTE =
+            "WITH activity(post_id, weight, at) AS (" +
+            "SELECT p.id, ?::float8, p.created_at FROM post p WHERE p.created_at >= ? AND p.created_at < ? " +
+            "UNION ALL SELECT l.post_id, ?::float8, l.liked_at FROM likes l WHERE l.liked_at >= ? AND l.liked_at < ? " +
+            "UNION ALL SELECT c.post_id, ?::float8, c.created_at FROM comment c WHERE c.created_at >= ? AND c.created_at < ?) " +
+            "SELECT a.post_id, SUM(a.weight * exp(-?::float8 * EXTRACT(EPOCH FROM (?::timestamp - a.at))::float8)) AS score " +
+            "FROM activity a JOIN post p ON p.id = a.post_id WHERE p.deleted_at IS NULL GROUP BY a.post_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double decayPerSecond;
+    private final long windowHours;
+    private final int capacity;
+    private final double postWeight;
+    private final double likeWeight;
+    private final double commentWeight;
+
+    // guarded by this
+    private Map<Long, Double> scores = new HashMap<>();
+    private double epochSeconds = seconds(LocalDateTime.now());
+    // events seen while a recompute is running, replayed onto its result; null otherwise
+    private List<Activity> journal;
+    // post ids by descending score, replaced (never modified) so readers need no lock
+    private volatile long[] top = new long[0];
+
+    public TrendingPosts(JdbcTemplate jdbcTemplate,
+                         @Value("${spring.app.trendingHalfLifeHours:24}") double halfLifeHours,
+                         @Value("${spring.app.trendingWindowHours:168}") long windowHours,
+                         @Value("${spring.app.trendingSize:200}") int capacity,
+                         @Value("${spring.app.trendingPostWeight:3}") double postWeight,
+                         @Value("${spring.app.trendingLikeWeight:1}") double likeWeight,
+                         @Value("${spring.app.trendingCommentWeight:2}") double commentWeight) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.decayPerSecond = Math.log(2) / (halfLifeHours * 3600);
+        this.windowHours = windowHours;
+        this.capacity = Math.max(1, capacity);
+        this.postWeight = postWeight;
+        this.likeWeight = likeWeight;
+        this.commentWeight = commentWeight;
+    }
+
+    public void postCreated(Long postId, LocalDateTime createdAt) {
+        record(new Activity(postId, postWeight, createdAt));
+    }
+
+    // unlikes are left to the recompute: the time of the like being removed isn't known here
+    public void liked(Long postId) {
+        record(new Activity(postId, likeWeight, LocalDateTime.now()));
+    }
+
+    public void commented(Long postId) {
+        record(new Activity(postId, commentWeight, LocalDateTime.now()));
+    }
+
+    public synchronized void remove(Long postId) {
+        if (scores.remove(postId) != null && contains(top, postId)) {
+            top = rank(scores.keySet());
+        }
+    }
+
+    // the highest scoring post ids, best first
+    public List<Long> top(int limit) {
+        long[] snapshot = top;
+        int size = Math.min(Math.max(0, limit), snapshot.length);
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(snapshot[i]);
+        }
+        return ids;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        recompute();
+    }
+
+    @Scheduled(initialDelayString = "${spring.app.trendingRecomputeIntervalMs:600000}", fixedDelayString = "${spring.app.trendingRecomputeIntervalMs:600000}")
+    public void recompute() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp epoch = Timestamp.valueOf(now);
+        Timestamp from = Timestamp.valueOf(now.minusHours(windowHours));
+        synchronized (this) {
+            journal = new ArrayList<>();
+        }
+        Map<Long, Double> fresh = new HashMap<>();
+        try {
+            jdbcTemplate.query(RECOMPUTE, row -> {
+                fresh.put(row.getLong(1), row.getDouble(2));
+            }, postWeight, from, epoch, likeWeight, from, epoch, commentWeight, from, epoch, decayPerSecond, epoch);
+        } catch (RuntimeException e) {
+            logger.warn("Could not recompute trending posts: {}", e.getMessage());
+            synchronized (this) {
+                journal = null;
+            }
+            return;
+        }
+        synchronized (this) {
+            scores = fresh;
+            epochSeconds = seconds(now);
+            // the query only counted activity before the epoch; re-apply what happened since
+            for (Activity activity : journal) {
+                if (!activity.at().isBefore(now)) {
+                    scores.merge(activity.postId(), weigh(activity), Double::sum);
+                }
+            }
+            journal = null;
+            top = rank(scores.keySet());
+        }
+    }
+
+    private synchronized void record(Activity activity) {
+        if (journal != null) {
+            journal.add(activity);
+        }
+        double score = scores.merge(activity.postId(), weigh(activity), Double::sum);
+        promote(activity.postId(), score);
+    }
+
+    // scores only grow between recomputes, so a post can only move up: re-rank just top-K plus this post
+    private void promote(long postId, double score) {
+        long[] current = top;
+        if (current.length == capacity && !contains(current, postId)
+                && score <= scores.getOrDefault(current[current.length - 1], 0d)) {
+            return;
+        }
+        Set<Long> candidates = new HashSet<>(current.length + 1);
+        for (long id : current) {
+            candidates.add(id);
+        }
+        candidates.add(postId);
+        top = rank(candidates);
+    }
+
+    private long[] rank(Collection<Long> ids) {
+        return ids.stream()
+                .sorted(Comparator.comparingDouble((Long id) -> scores.getOrDefault(id, 0d)).reversed())
+                .limit(capacity)
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private double weigh(Activity activity) {
+        return activity.weight() * Math.exp(decayPerSecond * (seconds(activity.at()) - epochSeconds));
+    }
+
+    private static boolean contains(long[] ids, long postId) {
+        for (long id : ids) {
+            if (id == postId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double seconds(LocalDateTime time) {
+        return Timestamp.valueOf(time).getTime() / 1000.0;
+    }
+
+    private record Activity(Long postId, double weight, LocalDateTime at) {}
+}
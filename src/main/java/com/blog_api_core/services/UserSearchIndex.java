@@ -0,0 +1,196 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.payload.ProfileSummary;
+import com.blog_api_core.repository.ProfileRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory index over usernames and display names for /search autocomplete.
+// Short terms are answered from a sorted name map (prefix scan); longer terms intersect
+// trigram posting sets and then verify the substring, so no query scans every user.
+@Service
+public class UserSearchIndex {
+    private static final int WARM_UP_BATCH_SIZE = 1000;
+    // ranks, lower is better
+    private static final int EXACT = 0;
+    private static final int USERNAME_PREFIX = 1;
+    private static final int NAME_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+
+    private final ProfileRepository profileRepository;
+    private final Map<Long, String[]> users = new HashMap<>();
+    // every lower-cased name and display-name word -> users, for prefix lookups
+    private final NavigableMap<String, Set<Long>> prefixes = new TreeMap<>();
+    private final Map<String, Set<Long>> trigrams = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public UserSearchIndex(ProfileRepository profileRepository) {
+        this.profileRepository = profileRepository;
+    }
+
+    public void index(Long userId, String username, String displayName) {
+        String[] names = {normalize(username), normalize(displayName)};
+        lock.writeLock().lock();
+        try {
+            removeLocked(userId);
+            users.put(userId, names);
+            for (String key : keysOf(names)) {
+                prefixes.computeIfAbsent(key, k -> new HashSet<>()).add(userId);
+            }
+            for (String trigram : trigramsOf(names)) {
+                trigrams.computeIfAbsent(trigram, t -> new HashSet<>()).add(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long userId) {
+        String[] names = users.remove(userId);
+        if (names == null) {
+            return;
+        }
+        for (String key : keysOf(names)) {
+            removePosting(prefixes, key, userId);
+        }
+        for (String trigram : trigramsOf(names)) {
+            removePosting(trigrams, trigram, userId);
+        }
+    }
+
+    // Returns at most limit user ids, exact and prefix matches first, then substring matches
+    public List<Long> search(String term, int limit) {
+        String query = normalize(term);
+        // an empty term would match everyone, i.e. walk the whole index for an arbitrary page of users
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // max-heap on (rank, name length, id) so the worst candidate is evicted first
+        PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1,
+                Comparator.<long[]>comparingLong(c -> c[0]).thenComparingLong(c -> c[1]).thenComparingLong(c -> c[2]).reversed());
+        lock.readLock().lock();
+        try {
+            for (Long userId : candidates(query)) {
+                String[] names = users.get(userId);
+                int rank = rank(names, query);
+                if (rank < 0) {
+                    continue;
+                }
+                top.offer(new long[]{rank, names[0].length(), userId});
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<long[]> ranked = new ArrayList<>(top);
+        ranked.sort(top.comparator().reversed());
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (long[] candidate : ranked) {
+            ids.add(candidate[2]);
+        }
+        return ids;
+    }
+
+    private Collection<Long> candidates(String query) {
+        if (query.length() < 3) {
+            Set<Long> matches = new HashSet<>();
+            prefixes.subMap(query, true, query + Character.MAX_VALUE, false).values().forEach(matches::addAll);
+            return matches;
+        }
+        // intersect starting from the rarest trigram
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String trigram : trigramsOf(new String[]{query, ""})) {
+            Set<Long> posting = trigrams.get(trigram);
+            if (posting == null) {
+                return List.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> matches = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !matches.isEmpty(); i++) {
+            matches.retainAll(postings.get(i));
+        }
+        return matches;
+    }
+
+    private static int rank(String[] names, String query) {
+        String username = names[0];
+        String displayName = names[1];
+        if (username.equals(query) || displayName.equals(query)) {
+            return EXACT;
+        }
+        if (username.startsWith(query)) {
+            return USERNAME_PREFIX;
+        }
+        if (displayName.startsWith(query) || displayName.contains(" " + query)) {
+            return NAME_PREFIX;
+        }
+        if (username.contains(query) || displayName.contains(query)) {
+            return SUBSTRING;
+        }
+        return -1;
+    }
+
+    private static Set<String> keysOf(String[] names) {
+        Set<String> keys = new HashSet<>();
+        keys.add(names[0]);
+        for (String word : names[1].split(" ")) {
+            if (!word.isEmpty()) {
+                keys.add(word);
+            }
+        }
+        return keys;
+    }
+
+    private static Set<String> trigramsOf(String[] names) {
+        Set<String> result = new HashSet<>();
+        for (String name : names) {
+            for (int i = 0; i + 3 <= name.length(); i++) {
+                result.add(name.substring(i, i + 3));
+            }
+        }
+        return result;
+    }
+
+    private static void removePosting(Map<String, Set<Long>> index, String key, Long userId) {
+        Set<Long> posting = index.get(key);
+        if (posting != null) {
+            posting.remove(userId);
+            if (posting.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<ProfileSummary> batch = profileRepository.findSearchableUsersAfter(0L, WARM_UP_BATCH_SIZE);
+        while (!batch.isEmpty()) {
+            for (ProfileSummary user : batch) {
+                index(user.getUserId(), user.getUsername(), user.getDisplayName());
+            }
+            batch = profileRepository.findSearchableUsersAfter(batch.get(batch.size() - 1).getUserId(), WARM_UP_BATCH_SIZE);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.blog_api_core.services;
+
+import com.blog_api_core.exceptions.NotFoundException;
+import com.blog_api_core.payload.ViewerState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+
+// Liked / bookmarked / commented flags for a whole page of posts in a fixed number of round trips:
+// likes come from the caller's LikedPostsIndex bitmap, bookmarks and comments from one query each
+// with the post ids bound as a single bigint[] parameter.
+@Service
+public class ViewerStateService {
+    private final JdbcTemplate jdbcTemplate;
+    private final LikedPostsIndex likedPostsIndex;
+    @Value("${spring.app.viewerStateMaxPosts:200}")
+    private int maxPosts;
+
+    public ViewerStateService(JdbcTemplate jdbcTemplate, LikedPostsIndex likedPostsIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.likedPostsIndex = likedPostsIndex;
+    }
+
+    // one entry per distinct post id, in request order
+    public List<ViewerState> getViewerState(Long userId, List<Long> postIds) {
+        if (postIds == null || postIds.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> ids = new LinkedHashSet<>(postIds);
+        ids.remove(null);
+        if (ids.size() > maxPosts) {
+            throw new NotFoundException("At most " + maxPosts + " posts per request");
+        }
+        Set<Long> bookmarked = postIdsFor("SELECT post_id FROM user_bookmarks WHERE user_id = ? AND post_id = ANY(?)", userId, ids);
+        Set<Long> commented = postIdsFor("SELECT DISTINCT post_id FROM comment WHERE user_id = ? AND post_id = ANY(?)", userId, ids);
+        List<ViewerState> states = new ArrayList<>(ids.size());
+        for (Long postId : ids) {
+            states.add(new ViewerState(postId, likedPostsIndex.isLiked(userId, postId), bookmarked.contains(postId), commented.contains(postId)));
+        }
+        return states;
+    }
+
+    private Set<Long> postIdsFor(String sql, Long userId, Set<Long> postIds) {
+        Set<Long> found = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setLong(1, userId);
+            statement.setArray(2, connection.createArrayOf("bigint", postIds.toArray()));
+            return statement;
+        }, row -> {
+            found.add(row.getLong(1));
+        });
+        return found;
+    }
+}
@@ -0,0 +1,239 @@
+package com.blog_api_core.utils;
+
+import com.blog_api_core.exceptions.NotFoundException;
+import com.blog_api_core.exceptions.OverloadedException;
+import com.blog_api_core.payload.PendingUpload;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Moves image uploads off the request thread. The multipart body is spooled to a local temp file,
+// the caller gets a pending url back immediately, and a bounded pool renders the resized variants
+// (see ImageVariant) and writes them to the configured MediaStorage, retrying whole uploads with
+// backoff before giving up.
+@Component
+public class ImageUploadPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ImageUploadPipeline.class);
+    public static final String PENDING_URL_PREFIX = PendingUpload.PENDING_URL_PREFIX;
+
+    private final MediaStorage storage;
+    private final Path spoolDir;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary uploadBytes;
+
+    public ImageUploadPipeline(MediaStorage storage,
+                               @Value("${spring.app.uploadSpoolDir:${java.io.tmpdir}/blog-api-uploads}") String spoolDir,
+                               @Value("${spring.app.uploadThreads:4}") int threads,
+                               @Value("${spring.app.uploadQueueCapacity:100}") int queueCapacity,
+                               @Value("${spring.app.uploadMaxAttempts:3}") int maxAttempts,
+                               @Value("${spring.app.uploadRetryBackoffMs:1000}") long retryBackoffMs,
+                               MeterRegistry meterRegistry) {
+        this.storage = storage;
+        this.spoolDir = Path.of(spoolDir);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("image-upload-"));
+        this.meterRegistry = meterRegistry;
+        this.uploadBytes = DistributionSummary.builder("media.upload.bytes")
+                .description("Size of objects written to media storage")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        meterRegistry.gauge("media.upload.queued", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("media.upload.active", executor, ThreadPoolExecutor::getActiveCount);
+        try {
+            Files.createDirectories(this.spoolDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Spools the file (it must be read within the request) but only queues the upload on PendingUpload.start(),
+    // so nothing is stored for a row that never got saved. Objects are keyed by keyPrefix + the SHA-256 of
+    // their content, so identical uploads share one object.
+    public PendingUpload submit(MultipartFile file, String keyPrefix) {
+        // refuse early while the caller can still fail the request; start() may yet be rejected under a race
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new OverloadedException("Too many uploads in progress, please try again");
+        }
+        SpooledFile spooled = spool(file);
+        String key = keyPrefix + spooled.sha256();
+        String contentType = file.getContentType();
+        CompletableFuture<String> completion = new CompletableFuture<>();
+        AtomicBoolean claimed = new AtomicBoolean();
+        Runnable start = () -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(() -> upload(spooled.path(), key, contentType, completion));
+            } catch (RejectedExecutionException e) {
+                delete(spooled.path());
+                completion.completeExceptionally(e);
+            }
+        };
+        Runnable discard = () -> {
+            if (claimed.compareAndSet(false, true)) {
+                delete(spooled.path());
+                completion.cancel(false);
+            }
+        };
+        // the submit time lets PendingImageSweeper tell abandoned uploads from ones still in flight
+        return new PendingUpload(PENDING_URL_PREFIX + System.currentTimeMillis() + ":" + UUID.randomUUID(), completion, start, discard);
+    }
+
+    public static boolean isPending(String url) {
+        return url != null && url.startsWith(PENDING_URL_PREFIX);
+    }
+
+    // hashes the body while copying it to disk, so the content is only read once
+    private SpooledFile spool(MultipartFile file) {
+        Path spooled = null;
+        try {
+            spooled = Files.createTempFile(spoolDir, "upload-", ".part");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new SpooledFile(spooled, HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException e) {
+            if (spooled != null) {
+                delete(spooled);
+            }
+            throw new NotFoundException("Could not read uploaded image");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void upload(Path spooled, String key, String contentType, CompletableFuture<String> completion) {
+        Map<ImageVariant, Path> variants = null;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    // same content was stored before
+                    String storedKey = storage.storedKey(key);
+                    if (storedKey == null) {
+                        if (variants == null) {
+                            variants = renderVariants(spooled, key);
+                        }
+                        storedKey = store(spooled, key, contentType, variants);
+                    }
+                    completion.complete(storage.url(storedKey));
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    if (attempt >= maxAttempts) {
+                        logger.warn("Upload of {} failed after {} attempts: {}", key, attempt, e.getMessage());
+                        completion.completeExceptionally(e);
+                        return;
+                    }
+                    logger.info("Upload of {} failed (attempt {}), retrying: {}", key, attempt, e.getMessage());
+                    Thread.sleep(retryBackoffMs * attempt);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            completion.completeExceptionally(e);
+        } finally {
+            delete(spooled);
+            if (variants != null) {
+                variants.values().forEach(ImageUploadPipeline::delete);
+            }
+        }
+    }
+
+    private String store(Path spooled, String key, String contentType, Map<ImageVariant, Path> variants) throws IOException, InterruptedException {
+        if (variants.isEmpty()) {
+            put(spooled, key, contentType);
+            return key;
+        }
+        // EnumMap iterates THUMBNAIL, CARD, FULL
+        for (Map.Entry<ImageVariant, Path> variant : variants.entrySet()) {
+            put(variant.getValue(), variant.getKey().key(key), "image/jpeg");
+        }
+        return ImageVariant.FULL.key(key);
+    }
+
+    // media.upload{storage, outcome} times every storage write, retries included
+    private void put(Path file, String key, String contentType) throws IOException, InterruptedException {
+        long size = Files.size(file);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            storage.put(file, key, contentType);
+            outcome = "success";
+            uploadBytes.record(size);
+        } finally {
+            sample.stop(Timer.builder("media.upload")
+                    .description("Writes of a single object to media storage")
+                    .tag("storage", storage.getClass().getSimpleName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    // files ImageIO cannot decode (or fails on) are stored as uploaded, without variants
+    private Map<ImageVariant, Path> renderVariants(Path spooled, String key) {
+        try {
+            return ImageVariantRenderer.render(spooled, spoolDir);
+        } catch (IOException | RuntimeException e) {
+            logger.info("Storing {} without variants: {}", key, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private static void delete(Path spooled) {
+        try {
+            Files.deleteIfExists(spooled);
+        } catch (IOException e) {
+            logger.warn("Could not delete spooled upload {}", spooled);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record SpooledFile(Path path, String sha256) {}
+
+    // lets queued uploads finish on shutdown; whatever is still running after the grace period is abandoned
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Abandoning {} image uploads on shutdown", executor.getQueue().size() + executor.getActiveCount());
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.blog_api_core.utils;
+
+// Resized copies written next to each uploaded image. The row stores the FULL url and the other
+// variants are derived from it, so no extra columns are needed.
+public enum ImageVariant {
+    THUMBNAIL("thumb", 160),
+    CARD("card", 640),
+    FULL("full", 1600);
+
+    private final String fileName;
+    private final int maxDimension;
+
+    ImageVariant(String name, int maxDimension) {
+        this.fileName = "/" + name + ".jpg";
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public String key(String baseKey) {
+        return baseKey + fileName;
+    }
+
+    // images stored before variants existed (and pending uploads) are returned unchanged
+    public String urlFrom(String fullUrl) {
+        if (fullUrl == null || !fullUrl.endsWith(FULL.fileName)) {
+            return fullUrl;
+        }
+        return fullUrl.substring(0, fullUrl.length() - FULL.fileName.length()) + fileName;
+    }
+}
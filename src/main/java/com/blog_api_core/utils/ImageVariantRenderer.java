@@ -0,0 +1,111 @@
+package com.blog_api_core.utils;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Decodes an uploaded image with ImageIO and writes every ImageVariant as a progressive JPEG.
+// Large sources are decoded with subsampling, so a 6000px photo is never fully inflated in memory,
+// and each variant is scaled down from the previous one in halving steps.
+public final class ImageVariantRenderer {
+    private static final float JPEG_QUALITY = 0.82f;
+    private static final ImageVariant[] LARGEST_FIRST = {ImageVariant.FULL, ImageVariant.CARD, ImageVariant.THUMBNAIL};
+
+    private ImageVariantRenderer() {}
+
+    // Returns an empty map when the file is not an image ImageIO can decode; callers then keep the original
+    public static Map<ImageVariant, Path> render(Path source, Path dir) throws IOException {
+        BufferedImage image = decode(source, ImageVariant.FULL.getMaxDimension());
+        Map<ImageVariant, Path> variants = new EnumMap<>(ImageVariant.class);
+        if (image == null) {
+            return variants;
+        }
+        try {
+            for (ImageVariant variant : LARGEST_FIRST) {
+                image = scale(image, variant.getMaxDimension());
+                Path file = Files.createTempFile(dir, "variant-", ".jpg");
+                variants.put(variant, file);
+                writeProgressiveJpeg(image, file);
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Path file : variants.values()) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+        return variants;
+    }
+
+    private static BufferedImage decode(Path source, int maxDimension) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int step = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / maxDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxDimension) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        BufferedImage current = source;
+        // halving with bilinear filtering keeps detail that a single large bilinear step would alias away
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight || current.getType() != BufferedImage.TYPE_INT_RGB) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    // JPEG has no alpha channel, so transparent areas are flattened onto white
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static void writeProgressiveJpeg(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.blog_api_core.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Writes {"status": ..., "result": [...]} one row at a time from a database cursor, so memory per
+// request stays constant regardless of how many rows the query returns. The stream is opened inside
+// a read-only transaction (the Postgres driver only honours fetch size with autocommit off) and
+// entities are detached after they are written so the persistence context does not grow either.
+@Component
+public class JsonStreamWriter {
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public JsonStreamWriter(ObjectMapper objectMapper, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <T> StreamingResponseBody stream(Object status, Supplier<Stream<T>> rows) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeObjectField("status", status);
+                generator.writeArrayFieldStart("result");
+                readOnlyTransaction.executeWithoutResult(tx -> {
+                    try (Stream<T> stream = rows.get()) {
+                        stream.forEach(row -> {
+                            try {
+                                generator.writeObject(row);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            if (row.getClass().isAnnotationPresent(Entity.class)) {
+                                entityManager.detach(row);
+                            }
+                        });
+                    }
+                });
+                generator.writeEndArray();
+                generator.writeEndObject();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+}
@@ -1,57 +1,114 @@
 package com.blog_api_core.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtils {
-    @Value("${spring.app.jwtSecret}")
-    private String jwtSecret;
-    @Value("${spring.app.jwtExpirationMs}")
-    private int jwtExpirationMs;
+    private final int jwtExpirationMs;
+    // the key and parser are immutable, so derive them once instead of on every call
+    private final SecretKey key;
+    private final JwtParser parser;
+    // verified tokens keyed by SHA-256 of the token (the raw bearer token is never kept),
+    // each entry expiring together with the token itself
+    private final Cache<String, Claims> verifiedTokens;
+    // jwt.verify{result=cached|verified|invalid}
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer invalidTimer;
 
-    private Key key(){ return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));}
+    public JwtUtils(@Value("${spring.app.jwtSecret}") String jwtSecret,
+                    @Value("${spring.app.jwtExpirationMs}") int jwtExpirationMs,
+                    @Value("${spring.app.jwtCacheSize:10000}") long jwtCacheSize,
+                    MeterRegistry meterRegistry) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.cachedTimer = verifyTimer(meterRegistry, "cached");
+        this.verifiedTimer = verifyTimer(meterRegistry, "verified");
+        this.invalidTimer = verifyTimer(meterRegistry, "invalid");
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        long remainingMs = expiration == null ? jwtExpirationMs : expiration.getTime() - System.currentTimeMillis();
+                        return Math.max(0, remainingMs) * 1_000_000L;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     public String generateTokenFromUser(String username) {
         return Jwts
                 .builder()
                 .subject(username)
                 .issuedAt(new Date())
-                .signWith(key())
                 .expiration(new Date((new Date()).getTime()+jwtExpirationMs))
-                .signWith(key())
+                .signWith(key)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        return Jwts
-                .parser()
-                .verifyWith((SecretKey) key())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+    // Verifies the signature and expiry once and returns the claims, or null when the token is not valid.
+    // Tokens seen before are answered from the cache without re-verifying the HMAC.
+    public Claims verifyToken(String token) {
+        long start = System.nanoTime();
+        String digest = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+        Claims claims = null;
+        try {
+            claims = parse(token);
+            if (claims != null) {
+                verifiedTokens.put(digest, claims);
+            }
+            return claims;
+        } finally {
+            (claims != null ? verifiedTimer : invalidTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
-    public boolean validateToken(String token) {
+    private Claims parse(String token) {
         try{
-            Jwts.parser()
-                    .verifyWith(((SecretKey) key()))
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         }catch(MalformedJwtException e){
             throw new MalformedJwtException("Invalid JWT");
         }catch (ExpiredJwtException e){
@@ -61,14 +118,23 @@ public class JwtUtils {
         }catch (IllegalArgumentException e){
             System.out.println("IllegalArgumentException: {}"+ e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    public String getUsernameFromToken(String token) {
+        Claims claims = verifyToken(token);
+        if (claims == null) {
+            throw new JwtException("Invalid JWT");
+        }
+        return claims.getSubject();
+    }
+
+    public boolean validateToken(String token) {
+        return verifyToken(token) != null;
     }
 
     public LocalDateTime extractExpiration(String token) {
-        Date expiration = Jwts
-                .parser()
-                .verifyWith((SecretKey) key())
-                .build()
+        Date expiration = parser
                 .parseSignedClaims(token)
                 .getPayload()
                 .getExpiration();
@@ -77,4 +143,21 @@ public class JwtUtils {
                 .atZone(ZoneId.systemDefault())
                 .toLocalDateTime();
     }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("jwt.verify")
+                .description("JWT signature and expiry checks, including cache hits")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
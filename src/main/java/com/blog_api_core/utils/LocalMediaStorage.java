@@ -0,0 +1,101 @@
+package com.blog_api_core.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Stores media under a local directory and lets MediaController serve it, for single-node installs
+// and tests that should not need S3. Files are copied channel to channel into a temp file and moved
+// into place atomically, so a reader never sees a half-written object.
+@Component
+@ConditionalOnProperty(name = "spring.app.storage", havingValue = "local")
+public class LocalMediaStorage implements MediaStorage {
+    private final Path root;
+    private final String baseUrl;
+
+    public LocalMediaStorage(@Value("${spring.app.localStorageDir:data/media}") String root,
+                             @Value("${spring.app.mediaBaseUrl:/media/}") String baseUrl) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public void put(Path file, String key, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".part");
+        try {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = in.size();
+                for (long position = 0; position < size; ) {
+                    position += out.transferFrom(in, position, size - position);
+                }
+                out.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public String url(String key) {
+        return baseUrl + key;
+    }
+
+    @Override
+    public long size(String key) {
+        Path file = find(key);
+        try {
+            return file == null ? -1 : Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // null when the key does not name a stored file
+    public Path find(String key) {
+        try {
+            Path file = resolve(key);
+            return Files.isRegularFile(file) ? file : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IllegalArgumentException("Invalid media key: " + key);
+        }
+        return file;
+    }
+}
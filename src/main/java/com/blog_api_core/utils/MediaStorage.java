@@ -0,0 +1,49 @@
+package com.blog_api_core.utils;
+
+import com.blog_api_core.payload.PresignedUpload;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Where uploaded media ends up. Selected with spring.app.storage: "s3" (default) or "local".
+// Keys written by put() and promote() are content-addressed, so such an object is never rewritten with
+// different bytes. Presigned uploads land on staging keys the client can overwrite until the url expires;
+// they are not cacheable and only become servable media once promoted.
+public interface MediaStorage {
+    String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    String STAGING_CACHE_CONTROL = "no-store";
+
+    boolean exists(String key);
+
+    void put(Path file, String key, String contentType) throws IOException, InterruptedException;
+
+    String url(String key);
+
+    // size in bytes, or -1 when there is no such object
+    long size(String key);
+
+    void delete(String key);
+
+    // the key already holding the content stored under baseKey, or null. The FULL variant is written last,
+    // so its presence means all variants are there; content stored without variants sits at baseKey itself.
+    default String storedKey(String baseKey) {
+        String fullKey = ImageVariant.FULL.key(baseKey);
+        if (exists(fullKey)) {
+            return fullKey;
+        }
+        return exists(baseKey) ? baseKey : null;
+    }
+
+    // null when the backend cannot accept uploads that bypass the application
+    default PresignedUpload presignPut(String key, String contentType, Duration ttl) {
+        return null;
+    }
+
+    // Moves a presigned upload to keyPrefix + the SHA-256 of its content (the same keys put() is used with),
+    // marked immutable, deletes the staging object and returns storedKey() of the result, so content already
+    // uploaded through the pipeline is reused. Throws IllegalStateException when the staging object changed meanwhile.
+    default String promote(String stagingKey, String keyPrefix) {
+        throw new UnsupportedOperationException("Direct uploads are not supported by this storage");
+    }
+}
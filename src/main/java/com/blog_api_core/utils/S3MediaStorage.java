@@ -0,0 +1,168 @@
+package com.blog_api_core.utils;
+
+import com.amazonaws.HttpMethod;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.blog_api_core.payload.PresignedUpload;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// TransferManager switches to parallel multipart uploads above the threshold
+@Component
+@ConditionalOnProperty(name = "spring.app.storage", havingValue = "s3", matchIfMissing = true)
+public class S3MediaStorage implements MediaStorage {
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+    private final TransferManager transferManager;
+
+    public S3MediaStorage(AmazonS3 s3Client,
+                          @Value("${aws.s3.bucket-name}") String bucketName,
+                          @Value("${spring.app.uploadThreads:4}") int threads,
+                          @Value("${spring.app.uploadMultipartThresholdBytes:16777216}") long multipartThreshold,
+                          @Value("${spring.app.uploadPartSizeBytes:8388608}") long partSize) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        AtomicInteger counter = new AtomicInteger();
+        this.transferManager = TransferManagerBuilder.standard()
+                .withS3Client(s3Client)
+                .withMultipartUploadThreshold(multipartThreshold)
+                .withMinimumUploadPartSize(partSize)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(threads, runnable -> {
+                    Thread thread = new Thread(runnable, "image-upload-part-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .withShutDownThreadPools(true)
+                .build();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return s3Client.doesObjectExist(bucketName, key);
+    }
+
+    @Override
+    public void put(Path file, String key, String contentType) throws IOException, InterruptedException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(Files.size(file));
+        metadata.setContentType(contentType);
+        // a key can only ever hold the content it was hashed from, so caches may keep it forever
+        metadata.setCacheControl(IMMUTABLE_CACHE_CONTROL);
+        transferManager.upload(new PutObjectRequest(bucketName, key, file.toFile()).withMetadata(metadata))
+                .waitForCompletion();
+    }
+
+    @Override
+    public String url(String key) {
+        return s3Client.getUrl(bucketName, key).toString();
+    }
+
+    @Override
+    public long size(String key) {
+        try {
+            return s3Client.getObjectMetadata(bucketName, key).getContentLength();
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        s3Client.deleteObject(bucketName, key);
+    }
+
+    // signed locally with the configured credentials, no request to S3 is made
+    @Override
+    public PresignedUpload presignPut(String key, String contentType, Duration ttl) {
+        Date expiration = Date.from(Instant.now().plus(ttl));
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, key, HttpMethod.PUT)
+                .withExpiration(expiration)
+                .withContentType(contentType);
+        request.putCustomRequestHeader(Headers.CACHE_CONTROL, STAGING_CACHE_CONTROL);
+        URL url = s3Client.generatePresignedUrl(request);
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(Headers.CONTENT_TYPE, contentType);
+        headers.put(Headers.CACHE_CONTROL, STAGING_CACHE_CONTROL);
+        return new PresignedUpload(key, url.toString(), headers, expiration.toInstant());
+    }
+
+    // The staged object is read once to hash it; its ETag is only used to pin that exact version (it is not a
+    // content hash under SSE-KMS or multipart). The server-side copy only succeeds while the staging object
+    // still has that ETag, so the new key always holds the bytes that were hashed.
+    @Override
+    public String promote(String stagingKey, String keyPrefix) {
+        ObjectMetadata staged;
+        String sha256;
+        try (S3Object object = s3Client.getObject(bucketName, stagingKey)) {
+            staged = object.getObjectMetadata();
+            sha256 = sha256(object.getObjectContent());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String key = storedKey(keyPrefix + sha256);
+        if (key == null) {
+            key = keyPrefix + sha256;
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(staged.getContentType());
+            metadata.setCacheControl(IMMUTABLE_CACHE_CONTROL);
+            CopyObjectRequest copy = new CopyObjectRequest(bucketName, stagingKey, bucketName, key)
+                    .withMatchingETagConstraint(staged.getETag())
+                    .withNewObjectMetadata(metadata);
+            if (s3Client.copyObject(copy) == null) {
+                throw new IllegalStateException("Upload " + stagingKey + " changed while it was being finalized");
+            }
+        }
+        s3Client.deleteObject(bucketName, stagingKey);
+        return key;
+    }
+
+    private static String sha256(InputStream content) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream input = new DigestInputStream(content, digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transferManager.shutdownNow(false);
+    }
+}
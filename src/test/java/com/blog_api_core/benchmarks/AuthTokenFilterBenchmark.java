@@ -0,0 +1,59 @@
+package com.blog_api_core.benchmarks;
+
+import com.blog_api_core.jwt.AuthTokenFilter;
+import com.blog_api_core.models.Role;
+import com.blog_api_core.models.User;
+import com.blog_api_core.repository.UserRepository;
+import com.blog_api_core.services.CustomUserDetailsService;
+import com.blog_api_core.services.PrincipalCache;
+import com.blog_api_core.utils.JwtUtils;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Measures the filter's own cost per authenticated request for a warm user; the repository is a mock.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class AuthTokenFilterBenchmark {
+    private AuthTokenFilter filter;
+    private MockHttpServletRequest request;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = JwtBenchmark.newJwtUtils();
+        Role role = new Role();
+        role.setName("ROLE_USER");
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark-user");
+        user.setRoles(Set.of(role));
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findByUsername("benchmark-user")).thenReturn(Optional.of(user));
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository, new PrincipalCache(1000, 300000));
+        filter = new AuthTokenFilter(jwtUtils, userDetailsService);
+        request = new MockHttpServletRequest("GET", "/blog/posts-summary");
+        request.addHeader("Authorization", "Bearer " + jwtUtils.generateTokenFromUser("benchmark-user"));
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws Exception {
+        // OncePerRequestFilter marks the request as filtered, so each invocation needs a fresh attribute set
+        request.clearAttributes();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
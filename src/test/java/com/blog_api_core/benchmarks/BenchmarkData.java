@@ -0,0 +1,65 @@
+package com.blog_api_core.benchmarks;
+
+import com.blog_api_core.payload.PostSummary;
+import com.blog_api_core.payload.SinglePost;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic fixtures shared by the benchmarks
+final class BenchmarkData {
+    private static final int VOCABULARY = 5000;
+
+    private BenchmarkData() {}
+
+    static List<PostSummary> postSummaries(int count, int contentWords) {
+        Random random = new Random(42);
+        List<PostSummary> posts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            posts.add(new Summary((long) i, words(random, 6), words(random, contentWords)));
+        }
+        return posts;
+    }
+
+    static SinglePost singlePost(int contentWords) {
+        return new Single(words(new Random(7), 8), words(new Random(11), contentWords));
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            // skewed towards low word numbers, roughly like natural word frequencies
+            text.append("word").append((int) (Math.pow(random.nextDouble(), 3) * VOCABULARY));
+        }
+        return text.toString();
+    }
+
+    record Summary(Long postId, String title, String content) implements PostSummary {
+        public Long getPostId() { return postId; }
+        public String getUsername() { return "user" + postId % 100; }
+        public String getUserImgUrl() { return "https://cdn.example.com/profile-pics/user" + postId % 100 + ".jpg"; }
+        public String getTitle() { return title; }
+        public String getContent() { return content; }
+        public String getPostImg() { return "https://cdn.example.com/post-images/" + postId + ".jpg"; }
+        public int getLikeCount() { return (int) (postId % 500); }
+        public Integer getLikedByUser() { return (int) (postId % 2); }
+        public LocalDateTime getCreatedAt() { return LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(postId); }
+    }
+
+    record Single(String title, String content) implements SinglePost {
+        public Long getId() { return 1L; }
+        public String getTitle() { return title; }
+        public String getContent() { return content; }
+        public String getImgUrl() { return "https://cdn.example.com/post-images/1.jpg"; }
+        public int getLikesCount() { return 1234; }
+        public int getCommentsCount() { return 56; }
+        public String getUsername() { return "author"; }
+        public String getUserImgUrl() { return "https://cdn.example.com/profile-pics/author.jpg"; }
+        public String getDisplayName() { return "The Author"; }
+    }
+}
@@ -0,0 +1,45 @@
+package com.blog_api_core.benchmarks;
+
+import com.blog_api_core.utils.JwtUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class JwtBenchmark {
+    static final String SECRET = "c2VjcmV0LWtleS1mb3ItYmVuY2htYXJraW5nLWp3dC12YWxpZGF0aW9uLTEyMzQ1Njc4OTA=";
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = newJwtUtils();
+        token = jwtUtils.generateTokenFromUser("benchmark-user");
+    }
+
+    static JwtUtils newJwtUtils() {
+        return new JwtUtils(SECRET, 86400000, 10000, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public Object verifyToken() {
+        return jwtUtils.verifyToken(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtils.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtUtils.getUsernameFromToken(token);
+    }
+}
@@ -0,0 +1,52 @@
+package com.blog_api_core.benchmarks;
+
+import com.blog_api_core.payload.PostSummary;
+import com.blog_api_core.services.PostSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Compares the original searchPost loop (lower-case contains over every summary) with the index lookup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class PostSearchBenchmark {
+    @Param({"10000"})
+    public int posts;
+
+    @Param({"word3100", "word120 word45"})
+    public String searchTerm;
+
+    private List<PostSummary> summaries;
+    private PostSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        summaries = BenchmarkData.postSummaries(posts, 200);
+        index = new PostSearchIndex(null);
+        for (PostSummary post : summaries) {
+            index.index(post.getPostId(), post.getTitle(), post.getContent());
+        }
+    }
+
+    @Benchmark
+    public List<PostSummary> filterLoop() {
+        List<PostSummary> filteredPosts = new ArrayList<>();
+        for (PostSummary post : summaries) {
+            if (post.getTitle().toLowerCase().contains(searchTerm.toLowerCase())) {
+                filteredPosts.add(post);
+            }
+        }
+        return filteredPosts;
+    }
+
+    @Benchmark
+    public List<Long> invertedIndex() {
+        return index.search(searchTerm, 0, 20);
+    }
+}
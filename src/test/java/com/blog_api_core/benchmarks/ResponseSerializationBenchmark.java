@@ -0,0 +1,58 @@
+package com.blog_api_core.benchmarks;
+
+import com.blog_api_core.payload.SinglePost;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Serializes the same {status, result} maps the controllers return
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+public class ResponseSerializationBenchmark {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @State(Scope.Benchmark)
+    public static class SummaryResponse {
+        @Param({"20", "1000"})
+        public int posts;
+        Map<String, Object> response;
+
+        @Setup
+        public void setUp() {
+            response = new LinkedHashMap<>();
+            response.put("status", true);
+            response.put("result", BenchmarkData.postSummaries(posts, 200));
+            response.put("user", "benchmark-user");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SinglePostResponse {
+        Map<String, Object> response;
+
+        @Setup
+        public void setUp() {
+            SinglePost post = BenchmarkData.singlePost(800);
+            response = new LinkedHashMap<>();
+            response.put("status", true);
+            response.put("result", post);
+        }
+    }
+
+    @Benchmark
+    public byte[] postSummaries(SummaryResponse state) throws Exception {
+        return OBJECT_MAPPER.writeValueAsBytes(state.response);
+    }
+
+    @Benchmark
+    public byte[] singlePost(SinglePostResponse state) throws Exception {
+        return OBJECT_MAPPER.writeValueAsBytes(state.response);
+    }
+}
@@ -0,0 +1,79 @@
+package com.blog_api_core.controllers;
+
+import com.blog_api_core.utils.LocalMediaStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class MediaControllerTest {
+    private static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private static final String KEY = "post-images/" + HASH + "/full.jpg";
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path parent;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // the storage root is a subdirectory, so a traversal out of it has a real file to reach
+        Path root = Files.createDirectory(parent.resolve("media"));
+        LocalMediaStorage storage = new LocalMediaStorage(root.toString(), "/media/");
+        Path source = Files.write(parent.resolve("source.bin"), CONTENT);
+        storage.put(source, KEY, "image/jpeg");
+        mockMvc = MockMvcBuilders.standaloneSetup(new MediaController(storage)).build();
+    }
+
+    @Test
+    void servesWholeFileWithStrongEtag() throws Exception {
+        MvcResult result = mockMvc.perform(get("/media/" + KEY))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Length", "20"))
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andExpect(header().string("Cache-Control", "public, max-age=31536000, immutable"))
+                .andExpect(header().string("ETag", "\"" + HASH + "-full\""))
+                .andReturn();
+        assertArrayEquals(CONTENT, result.getResponse().getContentAsByteArray());
+
+        String etag = result.getResponse().getHeader("ETag");
+        mockMvc.perform(get("/media/" + KEY).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        mockMvc.perform(get("/media/" + KEY).header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/20"))
+                .andExpect(content().string("2345"));
+        mockMvc.perform(get("/media/" + KEY).header("Range", "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("hij"));
+        mockMvc.perform(get("/media/" + KEY).header("Range", "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */20"));
+    }
+
+    @Test
+    void rejectsKeysOutsideTheRoot() throws Exception {
+        assertTrue(Files.isRegularFile(parent.resolve("media/../source.bin")));
+        mockMvc.perform(get("/media/../source.bin"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/media/%2e%2e/source.bin"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/media/post-images/missing.jpg"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,66 @@
+package com.blog_api_core.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicFeedIndexTest {
+    private static final Long TOPIC = 7L;
+
+    @Test
+    void pagesNewestFirst() {
+        TopicFeedIndex index = new TopicFeedIndex(null, 10);
+        for (long id = 1; id <= 5; id++) {
+            index.add(id, List.of(TOPIC));
+        }
+
+        assertEquals(List.of(5L, 4L), index.page(TOPIC, 0, 2));
+        assertEquals(List.of(3L, 2L), index.page(TOPIC, 2, 2));
+        assertEquals(List.of(1L), index.page(TOPIC, 4, 2));
+        // nothing older exists, so past the end is empty rather than a database fallback
+        assertEquals(List.of(), index.page(TOPIC, 6, 2));
+        assertEquals(List.of(), index.page(99L, 0, 2));
+    }
+
+    @Test
+    void wrapsAroundAndFallsBackPastTheRing() {
+        TopicFeedIndex index = new TopicFeedIndex(null, 3);
+        for (long id = 1; id <= 5; id++) {
+            index.add(id, List.of(TOPIC));
+        }
+
+        assertEquals(List.of(5L, 4L, 3L), index.page(TOPIC, 0, 3));
+        // ids 1 and 2 were pushed out, so a page reaching past the ring must come from the database
+        assertNull(index.page(TOPIC, 2, 2));
+        assertNull(index.page(TOPIC, 3, 3));
+    }
+
+    @Test
+    void fullRingLoadedWithOneExtraRowIsTruncated() {
+        // warm-up loads capacity + 1 rows for topics with older posts
+        TopicFeedIndex index = new TopicFeedIndex(null, 3);
+        for (long id = 1; id <= 4; id++) {
+            index.add(id, List.of(TOPIC));
+        }
+
+        assertEquals(List.of(4L, 3L, 2L), index.page(TOPIC, 0, 3));
+        assertNull(index.page(TOPIC, 3, 3));
+    }
+
+    @Test
+    void removeKeepsOrderAcrossTheWrap() {
+        TopicFeedIndex index = new TopicFeedIndex(null, 4);
+        for (long id = 1; id <= 6; id++) {
+            index.add(id, List.of(TOPIC, 8L));
+        }
+
+        index.remove(4L);
+
+        assertEquals(List.of(6L, 5L, 3L), index.page(TOPIC, 0, 3));
+        assertEquals(List.of(6L, 5L, 3L), index.page(8L, 0, 3));
+        index.add(7L, List.of(TOPIC));
+        assertEquals(List.of(7L, 6L, 5L, 3L), index.page(TOPIC, 0, 4));
+    }
+}
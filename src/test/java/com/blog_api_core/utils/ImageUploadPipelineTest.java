@@ -0,0 +1,176 @@
+package com.blog_api_core.utils;
+
+import com.blog_api_core.payload.PendingUpload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageUploadPipelineTest {
+    private static final int MULTIPART_THRESHOLD = 64 * 1024;
+    private static final int PART_SIZE = 16 * 1024;
+
+    @TempDir
+    Path spoolDir;
+    private LocalS3 s3;
+    private S3MediaStorage storage;
+    private ImageUploadPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new LocalS3();
+        storage = new S3MediaStorage(s3, "bucket", 2, MULTIPART_THRESHOLD, PART_SIZE);
+        pipeline = new ImageUploadPipeline(storage, spoolDir.toString(), 2, 10, 3, 1, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.shutdown();
+        storage.shutdown();
+    }
+
+    @Test
+    void uploadsSmallImageWithSinglePut() throws Exception {
+        byte[] image = randomBytes(1024);
+        String key = "bucket/post-images/" + sha256(image);
+        PendingUpload upload = start(pipeline.submit(new MockMultipartFile("image", "cat.png", "image/png", image), "post-images/"));
+
+        assertTrue(ImageUploadPipeline.isPending(upload.getPendingUrl()));
+        assertEquals("http://localhost/" + key, upload.getCompletion().get(10, TimeUnit.SECONDS));
+        assertArrayEquals(image, s3.objects.get(key));
+        assertEquals("image/png", s3.contentTypes.get(key));
+        assertEquals("public, max-age=31536000, immutable", s3.cacheControls.get(key));
+        assertEquals(0, s3.partRequests.get());
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void storesResizedVariantsOfDecodableImages() throws Exception {
+        byte[] image = png(2400, 1200);
+        String baseKey = "post-images/" + sha256(image);
+        PendingUpload upload = start(pipeline.submit(new MockMultipartFile("image", "photo.png", "image/png", image), "post-images/"));
+
+        String url = upload.getCompletion().get(10, TimeUnit.SECONDS);
+        assertEquals("http://localhost/bucket/" + baseKey + "/full.jpg", url);
+        assertEquals("http://localhost/bucket/" + baseKey + "/thumb.jpg", ImageVariant.THUMBNAIL.urlFrom(url));
+        assertFalse(s3.objects.containsKey("bucket/" + baseKey));
+        for (ImageVariant variant : ImageVariant.values()) {
+            String key = "bucket/" + variant.key(baseKey);
+            BufferedImage stored = ImageIO.read(new ByteArrayInputStream(s3.objects.get(key)));
+            assertEquals(variant.getMaxDimension(), stored.getWidth());
+            assertEquals(variant.getMaxDimension() / 2, stored.getHeight());
+            assertEquals("image/jpeg", s3.contentTypes.get(key));
+        }
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void skipsUploadOfContentAlreadyStored() throws Exception {
+        byte[] image = png(300, 200);
+        String first = start(pipeline.submit(new MockMultipartFile("image", "a.png", "image/png", image), "post-images/"))
+                .getCompletion().get(10, TimeUnit.SECONDS);
+        int puts = s3.putRequests.get();
+
+        String second = start(pipeline.submit(new MockMultipartFile("image", "b.png", "image/png", image), "post-images/"))
+                .getCompletion().get(10, TimeUnit.SECONDS);
+        assertEquals(first, second);
+        assertEquals(puts, s3.putRequests.get());
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void uploadsLargeImageInParts() throws Exception {
+        byte[] image = randomBytes(MULTIPART_THRESHOLD * 2 + 123);
+        PendingUpload upload = start(pipeline.submit(new MockMultipartFile("image", "big.jpg", "image/jpeg", image), "post-images/"));
+
+        upload.getCompletion().get(10, TimeUnit.SECONDS);
+        assertArrayEquals(image, s3.objects.get("bucket/post-images/" + sha256(image)));
+        assertTrue(s3.partRequests.get() > 1);
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void retriesTransientFailures() throws Exception {
+        s3.failuresToInject.set(2);
+        byte[] image = randomBytes(2048);
+        PendingUpload upload = start(pipeline.submit(new MockMultipartFile("image", "dog.png", "image/png", image), "profile-pics/"));
+
+        upload.getCompletion().get(10, TimeUnit.SECONDS);
+        assertArrayEquals(image, s3.objects.get("bucket/profile-pics/" + sha256(image)));
+        assertEquals(3, s3.putRequests.get());
+    }
+
+    @Test
+    void failsAfterLastAttempt() throws Exception {
+        s3.failuresToInject.set(3);
+        PendingUpload upload = start(pipeline.submit(new MockMultipartFile("image", "x.png", "image/png", randomBytes(10)), "post-images/"));
+
+        assertThrows(ExecutionException.class, () -> upload.getCompletion().get(10, TimeUnit.SECONDS));
+        assertTrue(s3.objects.isEmpty());
+        assertSpoolEmpty();
+    }
+
+    @Test
+    void discardedUploadStoresNothing() throws Exception {
+        PendingUpload upload = pipeline.submit(new MockMultipartFile("image", "x.png", "image/png", randomBytes(10)), "post-images/");
+
+        upload.discard();
+        upload.start();
+        assertTrue(upload.getCompletion().isCancelled());
+        assertTrue(s3.objects.isEmpty());
+        assertSpoolEmpty();
+    }
+
+    private static PendingUpload start(PendingUpload upload) {
+        upload.start();
+        return upload;
+    }
+
+    private void assertSpoolEmpty() throws Exception {
+        // the spooled file is deleted right after the completion fires
+        for (int i = 0; i < 50 && Files.list(spoolDir).findAny().isPresent(); i++) {
+            Thread.sleep(20);
+        }
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, 0xff000000 | (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
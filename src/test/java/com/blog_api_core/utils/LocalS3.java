@@ -0,0 +1,218 @@
+package com.blog_api_core.utils;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// In-memory stand-in for the S3 calls the upload pipeline makes (single PUT and multipart upload)
+// and the ones finalizing a direct upload (get, conditional copy, delete). ETags are the MD5 of the content.
+class LocalS3 extends AbstractAmazonS3 {
+    final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+    final Map<String, String> cacheControls = new ConcurrentHashMap<>();
+    final AtomicInteger putRequests = new AtomicInteger();
+    final AtomicInteger partRequests = new AtomicInteger();
+    final AtomicInteger failuresToInject = new AtomicInteger();
+    private final Map<String, SortedMap<Integer, byte[]>> multipartUploads = new ConcurrentHashMap<>();
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        putRequests.incrementAndGet();
+        failIfInjected();
+        byte[] data = request.getFile() != null ? readAll(request.getFile()) : readAll(request.getInputStream());
+        objects.put(request.getBucketName() + "/" + request.getKey(), data);
+        if (request.getMetadata() != null) {
+            contentTypes.put(request.getBucketName() + "/" + request.getKey(), request.getMetadata().getContentType());
+            if (request.getMetadata().getCacheControl() != null) {
+                cacheControls.put(request.getBucketName() + "/" + request.getKey(), request.getMetadata().getCacheControl());
+            }
+        }
+        return new PutObjectResult();
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        failIfInjected();
+        String uploadId = UUID.randomUUID().toString();
+        multipartUploads.put(uploadId, new ConcurrentSkipListMap<>());
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        partRequests.incrementAndGet();
+        byte[] data;
+        if (request.getFile() != null) {
+            data = new byte[(int) request.getPartSize()];
+            try (RandomAccessFile file = new RandomAccessFile(request.getFile(), "r")) {
+                file.seek(request.getFileOffset());
+                file.readFully(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            data = readAll(request.getInputStream());
+        }
+        multipartUploads.get(request.getUploadId()).put(request.getPartNumber(), data);
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(UUID.randomUUID().toString());
+        return result;
+    }
+
+    @Override
+    public PartListing listParts(ListPartsRequest request) {
+        PartListing listing = new PartListing();
+        listing.setUploadId(request.getUploadId());
+        multipartUploads.get(request.getUploadId()).forEach((partNumber, data) -> {
+            PartSummary part = new PartSummary();
+            part.setPartNumber(partNumber);
+            part.setSize(data.length);
+            listing.getParts().add(part);
+        });
+        return listing;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        for (byte[] part : multipartUploads.remove(request.getUploadId()).values()) {
+            object.writeBytes(part);
+        }
+        objects.put(request.getBucketName() + "/" + request.getKey(), object.toByteArray());
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        return result;
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        multipartUploads.remove(request.getUploadId());
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        byte[] data = objects.get(bucketName + "/" + key);
+        if (data == null) {
+            AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+            notFound.setStatusCode(404);
+            throw notFound;
+        }
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(data.length);
+        metadata.setContentType(contentTypes.get(bucketName + "/" + key));
+        metadata.setHeader(Headers.ETAG, etag(data));
+        return metadata;
+    }
+
+    @Override
+    public S3Object getObject(String bucketName, String key) {
+        ObjectMetadata metadata = getObjectMetadata(bucketName, key);
+        S3Object object = new S3Object();
+        object.setBucketName(bucketName);
+        object.setKey(key);
+        object.setObjectMetadata(metadata);
+        object.setObjectContent(new ByteArrayInputStream(objects.get(bucketName + "/" + key)));
+        return object;
+    }
+
+    // null when a matching-ETag constraint fails, like the real client
+    @Override
+    public CopyObjectResult copyObject(CopyObjectRequest request) {
+        byte[] data = objects.get(request.getSourceBucketName() + "/" + request.getSourceKey());
+        if (!request.getMatchingETagConstraints().isEmpty() && !request.getMatchingETagConstraints().contains(etag(data))) {
+            return null;
+        }
+        String target = request.getDestinationBucketName() + "/" + request.getDestinationKey();
+        objects.put(target, data);
+        if (request.getNewObjectMetadata() != null) {
+            contentTypes.put(target, request.getNewObjectMetadata().getContentType());
+            cacheControls.put(target, request.getNewObjectMetadata().getCacheControl());
+        }
+        return new CopyObjectResult();
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        objects.remove(bucketName + "/" + key);
+        contentTypes.remove(bucketName + "/" + key);
+        cacheControls.remove(bucketName + "/" + key);
+    }
+
+    static String etag(byte[] data) {
+        return hash("MD5", data);
+    }
+
+    static String sha256(byte[] data) {
+        return hash("SHA-256", data);
+    }
+
+    private static String hash(String algorithm, byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance(algorithm).digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String key) {
+        return objects.containsKey(bucketName + "/" + key);
+    }
+
+    @Override
+    public URL getUrl(String bucketName, String key) {
+        try {
+            return new URL("http://localhost/" + bucketName + "/" + key);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private void failIfInjected() {
+        if (failuresToInject.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            throw new SdkClientException("injected failure");
+        }
+    }
+
+    private static byte[] readAll(java.io.File file) {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readAll(InputStream input) {
+        try (input) {
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.blog_api_core.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3MediaStorageTest {
+    private static final String STAGING_KEY = "staging/42/upload";
+
+    private LocalS3 s3;
+    private S3MediaStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new LocalS3();
+        storage = new S3MediaStorage(s3, "bucket", 1, 1024, 1024);
+    }
+
+    @Test
+    void promoteCopiesToContentKeyAndDeletesStaging() {
+        byte[] image = "image bytes".getBytes(StandardCharsets.UTF_8);
+        s3.objects.put("bucket/" + STAGING_KEY, image);
+        s3.contentTypes.put("bucket/" + STAGING_KEY, "image/png");
+
+        String key = storage.promote(STAGING_KEY, "final/");
+
+        assertEquals("final/" + LocalS3.sha256(image), key);
+        assertArrayEquals(image, s3.objects.get("bucket/" + key));
+        assertEquals(MediaStorage.IMMUTABLE_CACHE_CONTROL, s3.cacheControls.get("bucket/" + key));
+        assertEquals("image/png", s3.contentTypes.get("bucket/" + key));
+        assertFalse(s3.objects.containsKey("bucket/" + STAGING_KEY));
+    }
+
+    @Test
+    void promoteNeverRewritesAnExistingContentKey() {
+        byte[] image = "image bytes".getBytes(StandardCharsets.UTF_8);
+        String key = "final/" + LocalS3.sha256(image);
+        s3.objects.put("bucket/" + key, image);
+        s3.objects.put("bucket/" + STAGING_KEY, image);
+
+        assertEquals(key, storage.promote(STAGING_KEY, "final/"));
+        assertFalse(s3.objects.containsKey("bucket/" + STAGING_KEY));
+    }
+
+    @Test
+    void promoteReusesVariantsStoredByThePipeline() {
+        byte[] image = "image bytes".getBytes(StandardCharsets.UTF_8);
+        String fullKey = ImageVariant.FULL.key("final/" + LocalS3.sha256(image));
+        s3.objects.put("bucket/" + fullKey, "resized".getBytes(StandardCharsets.UTF_8));
+        s3.objects.put("bucket/" + STAGING_KEY, image);
+
+        assertEquals(fullKey, storage.promote(STAGING_KEY, "final/"));
+        assertFalse(s3.objects.containsKey("bucket/final/" + LocalS3.sha256(image)));
+        assertFalse(s3.objects.containsKey("bucket/" + STAGING_KEY));
+    }
+}